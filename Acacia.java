@@ -1,6 +1,3 @@
-import java.util.List;
-import java.util.Random;
-
 /**
  * This is class of Acacia which is a plant
  * They are eaten by giraffes
@@ -10,81 +7,20 @@ import java.util.Random;
  */
 public class Acacia extends Plant
 {
-    // instance variables - replace the example below with your own
-    private static final int GROWTH_RATE = 1;
+    // The age to which acacia can live.
     private static final int MAX_AGE = 10;
+    // The likelihood of acacia seeding a free cell around it in a step.
     private static final double ACACIA_GROWTH_PROBABILITY = 0.10;
-    private static final Random rand = Randomizer.getRandom();
-    //the age of the acacia
-    private int age;
+    // How much more likely seeding is when it rains.
+    private static final double RAIN_BONUS = 0.01;
+    
     /**
      * Constructor for objects of class Acacia
+     * @param field The field the acacia grows in.
+     * @param store The store that holds the acacia.
      */
-    public Acacia(Field field, Location location)
+    public Acacia(Field field, EntityStore store)
     {
-        super(field, location);
-        age = 0;
-    }
-    
-    /**
-     * This is what the Acacioa does most of the time: it grows
-     * or die of old age.
-     * @param field The field currently occupied.
-     * @param newPlants A list to return newly born acacia.
-     */
-    public void act(List<Entity> newPlants){
-        incrementAge();
-        
-        if(isAlive()) {
-            grow(newPlants);            
-        }
-    }
-    
-    /**
-     * This method increments the age of the acacia 
-     * it also sets it dead if it ages
-     */
-    private void incrementAge(){
-        this.age++;
-        if(this.age > MAX_AGE) {
-            super.setDead();
-        }
-    }
-    
-    /**
-     * This method returns the number of acacia that the acacia should breed
-     * The acacia breed faster when its raining
-     * @return int the number of acacia to be bred
-     */
-    private int breed(){
-        int total = 0;
-        double growthBonusProbability = ACACIA_GROWTH_PROBABILITY;
-        if(getField().getWeatherCondition().equals("raining")){
-            growthBonusProbability += 0.01;
-        }
-        
-        for (int i = 0; i < GROWTH_RATE;i++){
-            if (rand.nextDouble() <= growthBonusProbability){
-                total++;
-            }
-        }
-        return total;
-    }
-    
-    /**
-     * This method is called twhen the acacia should grow
-     * @param a list of newPlants
-     */
-    protected void grow(List<Entity> newAcacia){
-        // New rabbits are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation());
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            Plant young = new Acacia(field, loc);
-            newAcacia.add(young);
-        }
+        super(field, store, MAX_AGE, ACACIA_GROWTH_PROBABILITY, RAIN_BONUS);
     }
 }
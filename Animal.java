@@ -1,24 +1,216 @@
-import java.util.List;
+import java.util.Random;
 
 /**
  * A class representing shared characteristics of animals.
- * 
+ * All animals follow the same rules: they age, may get hungry, breed
+ * when a male is near, look for food and move, and die of old age,
+ * hunger or overcrowding. How a species does so - its ages, litters,
+ * hunger and the times it feeds and moves - is given by its SpeciesSpec,
+ * and what it eats by the Diet, so the rules are written once here and
+ * a new species only needs a spec and its lines in the diet.
+ *
  * @author David J. Barnes and Michael Kölling and Reibjok Othow and Kwan Yui Chiu
- * @version 27/02/2022
+ * @version 18/10/2026
  */
 public abstract class Animal extends Entity
 {
-    private boolean female;
-    public Animal(boolean female, Field field, Location location){
-        super(field,location);
-        this.female = female;
+    // Finds food around an animal.
+    private static final NeighbourVisitor<Animal> FOOD = Animal::isFoodAt;
+
+    // The species this animal eats.
+    private final byte[] prey;
+    // The characteristics of this species.
+    private SpeciesSpec spec;
+
+    /**
+     * Create an animal species of a simulation. Individuals are added
+     * with create. Any system properties naming the species, such as
+     * "Fox.maxAge", override the values of the spec.
+     * @param field The field the animals live in.
+     * @param store The store that holds the animals.
+     * @param spec The characteristics of the species.
+     */
+    public Animal(Field field, EntityStore store, SpeciesSpec spec){
+        super(field, store);
+        prey = Diet.getPrey(getSpeciesCode());
+        this.spec = spec.withOverrides(getClass().getSimpleName(), System.getProperties());
+    }
+
+    /**
+     * @return The characteristics of this species.
+     */
+    public SpeciesSpec getSpec(){
+        return spec;
+    }
+
+    /**
+     * @return How far from its cell an animal of this species can look
+     *         at or change a cell, as given by its spec.
+     */
+    public int getReach(){
+        return spec.getReach();
     }
-    
+
+    /**
+     * Change the characteristics of this species. Must be called
+     * between steps; the step engine sizes its tiles for the new reach
+     * at the next step.
+     * @param spec The new characteristics.
+     */
+    public void setSpec(SpeciesSpec spec){
+        this.spec = spec;
+    }
+
+    /**
+     * Create an animal. An animal can be created as a new born (age zero
+     * and not hungry) or with a random age and, if it can get hungry, a
+     * random food level.
+     *
+     * @param randomAge If true, the animal will have a random age and hunger level.
+     * @param female whether or not the animal is female
+     * @param location The location within the field.
+     * @param rand The random generator to use.
+     * @return The slot of the new animal.
+     */
+    public int create(boolean randomAge, boolean female, Location location, Random rand){
+        int age = 0;
+        int foodLevel = spec.getStartingFoodLevel();
+        if(randomAge) {
+            age = rand.nextInt(spec.getMaxAge());
+            if(spec.isHungry()) {
+                foodLevel = rand.nextInt(foodLevel);
+            }
+        }
+        return spawn(location, female, age, foodLevel);
+    }
+
+    /**
+     * This is what an animal does most of the time: it looks for food
+     * and moves. In the process, it might breed, die of hunger,
+     * or die of old age. Only females breed.
+     * @param slot The slot of the animal.
+     * @param rand The random generator to use.
+     */
+    public final void act(int slot, Random rand){
+        Field field = getField();
+        incrementAge(slot);
+        if(spec.isHungry()) {
+            incrementHunger(slot);
+        }
+        if(isAlive(slot)) {
+            if(isFemale(slot)){
+                giveBirth(slot, rand);
+            }
+            // Move towards a source of food if found.
+            Location newLocation = null;
+            if(spec.getFeeding().isActive(field)){
+                newLocation = findFood(slot, rand);
+            }
+            if(newLocation == null) {
+                // No food found - try to move to a free location.
+                newLocation = field.freeAdjacentLocation(getLocation(slot), 1, rand);
+            }
+            // See if it was possible to move.
+            if(newLocation != null) {
+                if(spec.getMoving().isActive(field)) {
+                    setLocation(slot, newLocation);
+                }
+            }
+            else {
+                // Overcrowding.
+                setDead(slot);
+            }
+        }
+    }
+
+    /**
+     * Increase the age. This could result in the animal's death.
+     * @param slot The slot of the animal.
+     */
+    private void incrementAge(int slot){
+        int age = getAge(slot) + 1;
+        setAge(slot, age);
+        if(age > spec.getMaxAge()) {
+            setDead(slot);
+        }
+    }
+
+    /**
+     * Make this animal more hungry. This could result in the animal's death.
+     * @param slot The slot of the animal.
+     */
+    private void incrementHunger(int slot){
+        int foodLevel = getFoodLevel(slot) - 1;
+        setFoodLevel(slot, foodLevel);
+        if(foodLevel <= 0) {
+            setDead(slot);
+        }
+    }
+
+    /**
+     * Look for food adjacent to the current location.
+     * Only the first live prey is eaten.
+     * @param slot The slot of the animal.
+     * @param rand The random generator to use.
+     * @return Where food was found, or null if it wasn't.
+     */
+    private Location findFood(int slot, Random rand){
+        Field field = getField();
+        Location where = field.findAdjacent(getLocation(slot), 1, prey, this, FOOD, rand);
+        if(where != null) {
+            setFoodLevel(slot, Diet.getFoodValue(getSpeciesCode(),
+                                                 field.getSpeciesAt(where.getRow(), where.getCol())));
+            killAt(where);
+        }
+        return where;
+    }
+
+    /**
+     * Check whether the entity in a cell is food for this animal.
+     * @param index The index of the cell.
+     * @return true if this animal eats the species in the cell.
+     */
+    private boolean isFoodAt(int index){
+        return Diet.eats(getSpeciesCode(), getField().getSpeciesAt(index));
+    }
+
+    /**
+     * Check whether or not this animal is to give birth at this step.
+     * New births will be made into free locations near the mother.
+     * @param slot The slot of the mother.
+     * @param rand The random generator to use.
+     */
+    private void giveBirth(int slot, Random rand){
+        Field field = getField();
+        int births = breed(slot, rand);
+        for(int b = 0; b < births; b++) {
+            Location loc = field.freeAdjacentLocation(getLocation(slot), spec.getBirthDistance(), rand);
+            if(loc == null) {
+                break;
+            }
+            boolean gender = rand.nextBoolean();
+            create(false, gender, loc, rand);
+        }
+    }
+
     /**
-     * This is a method that returns whether or not the animal is female or not
-     * @return  boolean whether the instance is a female animal
+     * Generate a number representing the number of births,
+     * if it can breed and there is a male near enough.
+     * @param slot The slot of the animal.
+     * @param rand The random generator to use.
+     * @return The number of births (may be zero).
      */
-    protected boolean isFemale(){
-        return this.female;
+    private int breed(int slot, Random rand){
+        int births = 0;
+        if(getAge(slot) >= spec.getBreedingAge() && rand.nextDouble() <= spec.getBreedingProbability()) {
+            births = rand.nextInt(spec.getMaxLitterSize()) + 1;
+        }
+        if(births > 0 && getField().isMaleAdjacent(getLocation(slot), spec.getMateDistance(),
+                                                   getSpeciesCode())){
+            return births;
+        }
+        else{
+            return 0;
+        }
     }
 }
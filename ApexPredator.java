@@ -1,4 +1,3 @@
-
 /**
  * Abstract class ApexPredator
  * This is a class that represents an animal that is at the top off the food chain
@@ -8,13 +7,8 @@
  */
 public abstract class ApexPredator extends Animal
 {
-    public ApexPredator(boolean female, Field field, Location location)
+    public ApexPredator(Field field, EntityStore store, SpeciesSpec spec)
     {
-        super(female, field, location);
+        super(field, store, spec);
     }
-    
-    /**
-     * This abstract method is called when the apex predator should find food
-     */
-    protected abstract Location findFood();
 }
@@ -0,0 +1,291 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves the whole state of a simulation to a file, and restores it. A
+ * simulation restored from a checkpoint continues exactly as the one
+ * that was saved would have done.
+ *
+ * Everything random in a simulation is drawn from streams chosen by the
+ * seed, the run, the step and the position (see RandomStreams); the run
+ * is the number of resets, so the state of the random generators is the
+ * seed, the number of resets and the step, and need not be saved
+ * separately. The file holds, in order:
+ * a header with the seed, the step, the number of resets, the density,
+ * the size of the field, the weather and the names of the species in
+ * the order of their ids; the species code of every cell, one byte each,
+ * row by row; and the sex, age and food level of the individual in each
+ * occupied cell, in the same order. The slots of the individuals are not
+ * saved: they are given out afresh, which does not change what happens.
+ *
+ * A checkpoint is written to a temporary file that then replaces the
+ * target, so a crash while writing leaves the previous checkpoint intact.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class Checkpoint
+{
+    // Identifies a checkpoint: "PPCK".
+    private static final int MAGIC = 0x5050434B;
+    // The version of the file layout; 2 since the number of resets is
+    // part of the keys of the random streams.
+    private static final int VERSION = 2;
+    // The size of the buffer the individuals are written and read through.
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The size of the saved state of one individual, in bytes.
+    private static final int INDIVIDUAL_SIZE = 1 + 4 + 4;
+
+    // The step of the simulation.
+    private final int step;
+    // The number of times the simulation had been reset.
+    private final int resets;
+    // The factor by which the creation probabilities were scaled.
+    private final double density;
+
+    /**
+     * Create the description of a restored checkpoint.
+     * @param step The step of the simulation.
+     * @param resets The number of times the simulation had been reset.
+     * @param density The factor by which the creation probabilities were scaled.
+     */
+    private Checkpoint(int step, int resets, double density)
+    {
+        this.step = step;
+        this.resets = resets;
+        this.density = density;
+    }
+
+    /**
+     * Save the state of a simulation. Must be called between steps.
+     * @param file The file to write.
+     * @param field The field of the simulation.
+     * @param seed The seed of the random streams of the simulation.
+     * @param step The step of the simulation.
+     * @param resets The number of times the simulation has been reset.
+     * @param density The factor by which the creation probabilities are scaled.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, Field field, long seed,
+                             int step, int resets, double density) throws IOException
+    {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int cellCount = field.getDepth() * field.getWidth();
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putLong(seed);
+            buffer.putInt(step);
+            buffer.putInt(resets);
+            buffer.putDouble(density);
+            buffer.putInt(field.getDepth());
+            buffer.putInt(field.getWidth());
+            Weather weather = field.getWeather();
+            buffer.putInt(weather.getCode());
+            buffer.putInt(weather.getRemainingSteps());
+            buffer.putInt(SpeciesRegistry.size());
+            for(int species = 1; species <= SpeciesRegistry.size(); species++) {
+                byte[] name = SpeciesRegistry.getName(species).getBytes(StandardCharsets.UTF_8);
+                buffer.putShort((short) name.length);
+                buffer.put(name);
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+
+            byte[] cells = new byte[cellCount];
+            field.copyCells(cells);
+            writeFully(channel, ByteBuffer.wrap(cells));
+
+            buffer.clear();
+            for(int index = 0; index < cellCount; index++) {
+                if(cells[index] != Field.EMPTY) {
+                    if(buffer.remaining() < INDIVIDUAL_SIZE) {
+                        buffer.flip();
+                        writeFully(channel, buffer);
+                        buffer.clear();
+                    }
+                    Entity kind = field.getKind(cells[index]);
+                    int slot = field.getSlotAt(index);
+                    buffer.put((byte) (kind.isFemale(slot) ? 1 : 0));
+                    buffer.putInt(kind.getAge(slot));
+                    buffer.putInt(kind.getFoodLevel(slot));
+                }
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore the state of a simulation. The field and the individuals are
+     * replaced by those of the checkpoint; the caller sets the rest of
+     * the state of the simulation from the checkpoint returned. The whole
+     * file is read and checked first, so if it cannot be restored the
+     * simulation is left unchanged.
+     * @param file The file to read.
+     * @param field The field of the simulation, of the size saved.
+     * @param store The state of the individuals of the simulation.
+     * @param seed The seed of the random streams of the simulation, as saved.
+     * @return The rest of the state of the simulation.
+     * @throws IOException If the file cannot be read, or does not fit the simulation.
+     */
+    public static Checkpoint read(Path file, Field field, EntityStore store, long seed)
+        throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.flip();
+            fill(channel, buffer, 52);
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a checkpoint: " + file);
+            }
+            if(buffer.getLong() != seed) {
+                throw new IOException("The checkpoint was made with a different seed: " + file);
+            }
+            int step = buffer.getInt();
+            int resets = buffer.getInt();
+            double density = buffer.getDouble();
+            int depth = buffer.getInt();
+            int width = buffer.getInt();
+            if(depth != field.getDepth() || width != field.getWidth()) {
+                throw new IOException("The checkpoint is of a " + depth + " by " + width
+                                      + " field: " + file);
+            }
+            int weatherCode = buffer.getInt();
+            int weatherRemaining = buffer.getInt();
+            int speciesCount = buffer.getInt();
+            for(int species = 1; species <= speciesCount; species++) {
+                fill(channel, buffer, 2);
+                byte[] name = new byte[buffer.getShort()];
+                fill(channel, buffer, name.length);
+                buffer.get(name);
+                if(species > SpeciesRegistry.size()
+                   || !SpeciesRegistry.getName(species).equals(new String(name, StandardCharsets.UTF_8))) {
+                    throw new IOException("The checkpoint has different species: " + file);
+                }
+            }
+
+            byte[] cells = new byte[depth * width];
+            ByteBuffer cellBuffer = ByteBuffer.wrap(cells);
+            int remaining = Math.min(buffer.remaining(), cells.length);
+            buffer.get(cells, 0, remaining);
+            cellBuffer.position(remaining);
+            while(cellBuffer.hasRemaining()) {
+                if(channel.read(cellBuffer) < 0) {
+                    throw new EOFException("The checkpoint is incomplete: " + file);
+                }
+            }
+
+            int occupied = 0;
+            for(byte code : cells) {
+                if(code != Field.EMPTY) {
+                    if(code < 0 || field.getKind(code) == null) {
+                        throw new IOException("The checkpoint has an unknown species: " + file);
+                    }
+                    occupied++;
+                }
+            }
+
+            // Read the individuals in full before anything is changed, so
+            // that a checkpoint found to be incomplete leaves the simulation
+            // as it was.
+            ByteBuffer individuals = ByteBuffer.allocate(occupied * INDIVIDUAL_SIZE);
+            while(buffer.hasRemaining() && individuals.hasRemaining()) {
+                individuals.put(buffer.get());
+            }
+            while(individuals.hasRemaining()) {
+                if(channel.read(individuals) < 0) {
+                    throw new EOFException("The checkpoint is incomplete: " + file);
+                }
+            }
+            individuals.flip();
+
+            store.clear();
+            field.clear();
+            field.setRun(resets);
+            field.setStep(step);
+            field.getWeather().restore(weatherCode, weatherRemaining);
+            for(int index = 0; index < cells.length; index++) {
+                if(cells[index] != Field.EMPTY) {
+                    boolean female = individuals.get() != 0;
+                    int age = individuals.getInt();
+                    int foodLevel = individuals.getInt();
+                    field.getKind(cells[index]).spawn(field.getLocation(index), female,
+                                                      age, foodLevel);
+                }
+            }
+            return new Checkpoint(step, resets, density);
+        }
+    }
+
+    /**
+     * @return The step of the simulation.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The number of times the simulation had been reset.
+     */
+    public int getResets()
+    {
+        return resets;
+    }
+
+    /**
+     * @return The factor by which the creation probabilities were scaled.
+     */
+    public double getDensity()
+    {
+        return density;
+    }
+
+    /**
+     * Write the whole of a buffer to a channel.
+     * @param channel The channel to write to.
+     * @param buffer The buffer to write.
+     * @throws IOException If the channel cannot be written.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Make sure that a buffer being read holds at least the given number
+     * of bytes, reading more from the channel if needed.
+     * @param channel The channel to read from.
+     * @param buffer The buffer, ready to be read from.
+     * @param bytes The number of bytes needed; at most the buffer's capacity.
+     * @throws IOException If the channel ends first, or cannot be read.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException
+    {
+        if(buffer.remaining() < bytes) {
+            buffer.compact();
+            while(buffer.position() < bytes) {
+                if(channel.read(buffer) < 0) {
+                    throw new EOFException("The checkpoint is incomplete");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -1,4 +1,3 @@
-
 /**
  * Abstract class Consumer 
  * This is a class that represents an consumer in the food chain ie an animal 
@@ -9,20 +8,16 @@
  */
 public abstract class Consumer extends Animal
 {
-    public Consumer(boolean female, Field field, Location location)
+    public Consumer(Field field, EntityStore store, SpeciesSpec spec)
     {
-        super(female, field, location);
+        super(field, store, spec);
     }
     
-    /**
-     * This method is called when the consumer should find food if it is able to
-     */
-    protected abstract Location findFood();
-    
     /**
      * This method sets the consumer dead when it is eaten
+     * @param slot The slot of the consumer.
      */
-    protected void eaten(){
-        super.setDead();
+    protected void eaten(int slot){
+        super.setDead(slot);
     }
 }
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size history of the population counts of any number of species,
+ * one point per step shown. The counts are kept in a ring buffer of
+ * primitive arrays, one array per series, so adding a point costs a
+ * store per series and never allocates; once the history is full, each
+ * new point replaces the oldest.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class CountHistory
+{
+    // The largest number of points kept.
+    private final int capacity;
+    // The counts of each series, in a ring by point.
+    private int[][] series;
+    // The number of series.
+    private int seriesCount;
+    // The position in the ring of the oldest point.
+    private int start;
+    // The number of points kept.
+    private int size;
+
+    /**
+     * Create an empty history.
+     * @param capacity The largest number of points kept; at least 1.
+     */
+    public CountHistory(int capacity)
+    {
+        if(capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        series = new int[0][];
+        seriesCount = 0;
+        start = 0;
+        size = 0;
+    }
+
+    /**
+     * Set the number of series. New series read zero at every point
+     * already kept.
+     * @param count The number of series; not less than before.
+     */
+    public void setSeriesCount(int count)
+    {
+        if(count > series.length) {
+            int oldLength = series.length;
+            series = Arrays.copyOf(series, count);
+            for(int i = oldLength; i < count; i++) {
+                series[i] = new int[capacity];
+            }
+        }
+        seriesCount = Math.max(seriesCount, count);
+    }
+
+    /**
+     * @return The number of series.
+     */
+    public int getSeriesCount()
+    {
+        return seriesCount;
+    }
+
+    /**
+     * Add a point, replacing the oldest if the history is full.
+     * @param counts The count of each series, at least getSeriesCount() long.
+     */
+    public void add(int[] counts)
+    {
+        int position = (start + size) % capacity;
+        for(int i = 0; i < seriesCount; i++) {
+            series[i][position] = counts[i];
+        }
+        if(size < capacity) {
+            size++;
+        }
+        else {
+            start = (start + 1) % capacity;
+        }
+    }
+
+    /**
+     * Return the count of a series at a point.
+     * @param point The point, from 0 for the oldest to size() - 1.
+     * @param index The series.
+     * @return The count.
+     */
+    public int get(int point, int index)
+    {
+        return series[index][(start + point) % capacity];
+    }
+
+    /**
+     * @return The number of points kept.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The largest number of points kept.
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Remove every point. The series are kept.
+     */
+    public void clear()
+    {
+        start = 0;
+        size = 0;
+    }
+}
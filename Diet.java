@@ -0,0 +1,106 @@
+/**
+ * The table of who eats whom. For every pair of species ids, the table
+ * holds the food value of the second species to the first - the number
+ * of steps an animal can go on one meal of it - or 0 if it is not eaten.
+ * Each predator also has a bitmask of its prey, so that deciding whether
+ * a neighbour is food costs one shift and mask, whatever the species.
+ *
+ * The diet of every species is given by its lines of the table below; a
+ * new species is fed by adding its lines, without changing any other
+ * species. The food values themselves stay with the other characteristics
+ * of each species.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class Diet
+{
+    // The number of species ids.
+    private static final int IDS = SpeciesRegistry.MAX_SPECIES + 1;
+    // The number of words in the prey bitmask of a predator.
+    private static final int MASK_WORDS = (IDS + 63) / 64;
+
+    // The food value of each prey to each predator, at predator * IDS + prey.
+    private static final int[] foodValues = new int[IDS * IDS];
+    // The prey of each predator, one bit per prey id, MASK_WORDS words each.
+    private static final long[] preyMasks = new long[IDS * MASK_WORDS];
+    // The ids of the prey of each predator, or null until first asked for.
+    private static final byte[][] preyLists = new byte[IDS][];
+
+    static {
+        add(Rabbit.class, Grass.class, Rabbit.GRASS_FOOD_VALUE);
+        add(Mouse.class, Grass.class, Mouse.GRASS_FOOD_VALUE);
+        add(Giraffe.class, Acacia.class, Giraffe.ACACIA_FOOD_VALUE);
+        add(Snake.class, Mouse.class, Snake.MOUSE_FOOD_VALUE);
+        add(Snake.class, Rabbit.class, Snake.RABBIT_FOOD_VALUE);
+        add(Fox.class, Rabbit.class, Fox.RABBIT_FOOD_VALUE);
+        add(Fox.class, Mouse.class, Fox.MOUSE_FOOD_VALUE);
+        add(Fox.class, Snake.class, Fox.SNAKE_FOOD_VALUE);
+        add(Tiger.class, Rabbit.class, Tiger.RABBIT_FOOD_VALUE);
+        add(Tiger.class, Mouse.class, Tiger.MOUSE_FOOD_VALUE);
+        add(Tiger.class, Fox.class, Tiger.FOX_FOOD_VALUE);
+        add(Tiger.class, Giraffe.class, Tiger.GIRAFFE_FOOD_VALUE);
+    }
+
+    /**
+     * Check whether a species eats another.
+     * @param predator The id of the eater.
+     * @param prey The id of the species that may be eaten, or Field.EMPTY.
+     * @return true if the predator eats the prey.
+     */
+    public static boolean eats(byte predator, byte prey)
+    {
+        return (preyMasks[predator * MASK_WORDS + (prey >>> 6)] & (1L << prey)) != 0;
+    }
+
+    /**
+     * Return the food value of a species to another.
+     * @param predator The id of the eater.
+     * @param prey The id of the species eaten.
+     * @return The food value, or 0 if the predator does not eat the prey.
+     */
+    public static int getFoodValue(byte predator, byte prey)
+    {
+        return foodValues[predator * IDS + prey];
+    }
+
+    /**
+     * Return the ids of the species a species eats. The array is shared
+     * and must not be changed.
+     * @param predator The id of the eater.
+     * @return The ids of its prey, in increasing order; empty if it eats nothing.
+     */
+    public static synchronized byte[] getPrey(byte predator)
+    {
+        if(preyLists[predator] == null) {
+            int count = 0;
+            for(int word = 0; word < MASK_WORDS; word++) {
+                count += Long.bitCount(preyMasks[predator * MASK_WORDS + word]);
+            }
+            byte[] prey = new byte[count];
+            count = 0;
+            for(int id = 1; id < IDS; id++) {
+                if(eats(predator, (byte) id)) {
+                    prey[count++] = (byte) id;
+                }
+            }
+            preyLists[predator] = prey;
+        }
+        return preyLists[predator];
+    }
+
+    /**
+     * Add a pair to the table.
+     * @param predator The class of the eater.
+     * @param prey The class of the species eaten.
+     * @param foodValue The food value of the prey to the predator; positive.
+     */
+    private static void add(Class<? extends Entity> predator, Class<? extends Entity> prey,
+                            int foodValue)
+    {
+        byte eater = SpeciesRegistry.idOf(predator);
+        byte eaten = SpeciesRegistry.idOf(prey);
+        foodValues[eater * IDS + eaten] = foodValue;
+        preyMasks[eater * MASK_WORDS + (eaten >>> 6)] |= 1L << eaten;
+    }
+}
@@ -1,79 +1,168 @@
-import java.util.List;
+import java.util.Random;
 
 /**
- * Write a description of class Entity here.
- * An entity is any living organism in the Simulation
+ * An entity is any living organism in the Simulation.
+ * One Entity object stands for a whole species: it holds the behaviour
+ * of that species, while the state of each individual (its age, food
+ * level, location, ...) lives in the species' columns in the EntityStore.
+ * Individuals are identified by their slot in those columns.
  *
  * @author Reibjok Othow and Kwan Yui Chiu
- * @version 27/02/2022
+ * @version 18/10/2026
  */
 public abstract class Entity
 {
-    // Whether the entity is alive or not.
-    private boolean alive;
-    // The entity's field.
+    // The field the individuals live in.
     private Field field;
-    // The entity's position in the field.
-    private Location location;
-    
+    // The state of the individuals of this species.
+    private SpeciesColumns individuals;
+    // The id of this species in the SpeciesRegistry.
+    private final byte speciesCode;
+
     /**
-     * Create a new entity at location in field.
-     * 
-     * @param field The field currently occupied.
-     * @param location The location within the field.
+     * Create a new kind of entity living in the given field.
+     *
+     * @param field The field the individuals live in.
+     * @param store The store that holds the individuals.
      */
-    public Entity(Field field, Location location)
+    public Entity(Field field, EntityStore store)
     {
-        alive = true;
         this.field = field;
-        setLocation(location);
+        speciesCode = SpeciesRegistry.idOf(getClass());
+        individuals = store.register(this);
+        field.register(this);
     }
 
     /**
-     * Return the entity's location.
-     * @return The entity's location.
+     * Create a new individual at the given location.
+     * @param location Where the individual is placed.
+     * @param female Whether the individual is female.
+     * @param age The age of the individual.
+     * @param foodLevel The food level of the individual.
+     * @return The slot of the new individual.
      */
-    protected Location getLocation()
+    protected int spawn(Location location, boolean female, int age, int foodLevel)
     {
-        return location;
+        int index = field.getIndex(location);
+        int slot = individuals.allocate(female, index, age, foodLevel);
+        field.place(this, slot, location);
+        return slot;
     }
-    
+
     /**
-     * Place the entity at the new location in the given field.
-     * @param newLocation The entity's new location.
+     * Return the individual's location.
+     * @param slot The slot of the individual.
+     * @return The individual's location.
      */
-    protected void setLocation(Location newLocation)
+    protected Location getLocation(int slot)
     {
-        if(location != null) {
-            field.clear(location);
-        }
-        location = newLocation;
-        field.place(this, newLocation);
+        return field.getLocation(individuals.getCell(slot));
+    }
+
+    /**
+     * Move the individual to the new location in the field.
+     * @param slot The slot of the individual.
+     * @param newLocation The individual's new location.
+     */
+    protected void setLocation(int slot, Location newLocation)
+    {
+        field.clear(getLocation(slot));
+        individuals.setCell(slot, field.getIndex(newLocation));
+        field.place(this, slot, newLocation);
     }
 
     /**
-     * Check whether the entity is alive or not.
-     * @return true if the entity is still alive.
+     * Check whether the individual is alive or not.
+     * @param slot The slot of the individual.
+     * @return true if the individual is still alive.
      */
-    protected boolean isAlive()
+    protected boolean isAlive(int slot)
     {
-        return alive;
+        return individuals.isAlive(slot);
     }
 
     /**
-     * Indicate that the entity is no longer alive.
-     * It is removed from the field.
+     * Indicate that the individual is no longer alive.
+     * It is removed from the field and its slot is released.
+     * @param slot The slot of the individual.
      */
-    protected void setDead()
+    protected void setDead(int slot)
     {
-        alive = false;
-        if(location != null) {
-            field.clear(location);
-            location = null;
-            field = null;
+        if(individuals.isAlive(slot)) {
+            field.clear(getLocation(slot));
+            individuals.release(slot);
         }
     }
-    
+
+    /**
+     * Kill whatever individual occupies the given location, of any species.
+     * @param location The location of the individual.
+     */
+    protected void killAt(Location location)
+    {
+        Entity kind = (Entity) field.getObjectAt(location);
+        kind.setDead(field.getSlotAt(location.getRow(), location.getCol()));
+    }
+
+    /**
+     * @return Whether the individual in the slot is female.
+     */
+    protected boolean isFemale(int slot)
+    {
+        return individuals.isFemale(slot);
+    }
+
+    /**
+     * @return The age of the individual in the slot.
+     */
+    protected int getAge(int slot)
+    {
+        return individuals.getAge(slot);
+    }
+
+    /**
+     * Set the age of the individual in the slot.
+     */
+    protected void setAge(int slot, int age)
+    {
+        individuals.setAge(slot, age);
+    }
+
+    /**
+     * @return The food level of the individual in the slot.
+     */
+    protected int getFoodLevel(int slot)
+    {
+        return individuals.getFoodLevel(slot);
+    }
+
+    /**
+     * Set the food level of the individual in the slot.
+     */
+    protected void setFoodLevel(int slot, int foodLevel)
+    {
+        individuals.setFoodLevel(slot, foodLevel);
+    }
+
+    /**
+     * Return the number of live individuals of this species. The count
+     * is kept up to date as individuals are born and die.
+     * @return The number of individuals.
+     */
+    public int getCount()
+    {
+        return individuals.getCount();
+    }
+
+    /**
+     * Return the columns holding the individuals of this species.
+     * @return The individuals of this species.
+     */
+    protected SpeciesColumns getIndividuals()
+    {
+        return individuals;
+    }
+
     /**
      * Return the entity's field.
      * @return The entity's field.
@@ -82,11 +171,36 @@ public abstract class Entity
     {
         return field;
     }
-    
+
+    /**
+     * Return the code that identifies the species of this entity in the
+     * field. It is the id given to the class by the SpeciesRegistry, so
+     * every concrete kind of entity has its own code, which is never
+     * Field.EMPTY.
+     * @return The species code.
+     */
+    public final byte getSpeciesCode()
+    {
+        return speciesCode;
+    }
+
+    /**
+     * Return how far from its cell an individual of this species can look
+     * at or change a cell when it acts.
+     * @return The reach of the species, in cells; 1 unless overridden.
+     */
+    public int getReach()
+    {
+        return 1;
+    }
+
     /**
-     * Make this entity act - that is: make it do
+     * Make an individual act - that is: make it do
      * whatever it wants/needs to do.
-     * @param newentitys A list to receive newly born entitys.
+     * @param slot The slot of the individual.
+     * @param rand The random generator to use. Individuals acting
+     * at the same time in different parts of the field are given
+     * different generators.
      */
-    abstract public void act(List<Entity> newEntities);
+    abstract public void act(int slot, Random rand);
 }
@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The store of all entities in a simulation. Individuals are not objects:
+ * each kind of entity (Fox, Rabbit, ...) is represented by one object that
+ * holds its behaviour, and the state of its individuals is kept in
+ * primitive columns, one set of columns per species. The individuals
+ * are made to act by TiledStepEngine, which finds them through the field.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class EntityStore
+{
+    // The columns of each species, indexed by species code.
+    private SpeciesColumns[] columns;
+    // The kinds of entity, in the order in which they were added.
+    private List<Entity> kinds;
+
+    /**
+     * Create an empty store.
+     */
+    public EntityStore()
+    {
+        columns = new SpeciesColumns[Byte.MAX_VALUE + 1];
+        kinds = new ArrayList<>();
+    }
+
+    /**
+     * Add a kind of entity to the store.
+     * @param kind The kind of entity.
+     * @return The columns that hold the individuals of that kind.
+     */
+    public SpeciesColumns register(Entity kind)
+    {
+        SpeciesColumns individuals = new SpeciesColumns();
+        columns[kind.getSpeciesCode()] = individuals;
+        kinds.add(kind);
+        return individuals;
+    }
+
+    /**
+     * Make the slots of the individuals that died during the step
+     * available to new ones. Called at the end of every step.
+     */
+    public void recycleSlots()
+    {
+        for(Entity kind : kinds) {
+            columns[kind.getSpeciesCode()].recycle();
+        }
+    }
+
+    /**
+     * Remove every individual.
+     */
+    public void clear()
+    {
+        for(Entity kind : kinds) {
+            columns[kind.getSpeciesCode()].clear();
+        }
+    }
+
+    /**
+     * Return the columns of the given species.
+     * @param species The species code.
+     * @return The columns, or null if no such species has been added.
+     */
+    public SpeciesColumns getColumns(byte species)
+    {
+        return columns[species];
+    }
+
+    /**
+     * Return the total number of live individuals of all species.
+     * @return The number of individuals.
+     */
+    public int getCount()
+    {
+        int total = 0;
+        for(Entity kind : kinds) {
+            total += kind.getCount();
+        }
+        return total;
+    }
+}
@@ -1,12 +1,29 @@
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Represent a rectangular grid of field positions.
  * Each position is able to store a single animal.
+ * The grid is stored in flat row-major arrays: one holds the species
+ * code of each cell, so that the kind of animal in a cell can be found
+ * with a single array read, and the other holds the slot of the animal
+ * in the columns of its species (see EntityStore).
+ * The field also remembers which cells have changed since they were
+ * last taken with takeChangedCells, so that views need only redraw
+ * those.
+ * For each species, and for all of them together, the field keeps a
+ * bitboard: one bit per cell, set if the cell holds that species (or
+ * anything). Questions such as "is there a rabbit within two cells?"
+ * or "how many free cells are around me?" are answered by counting the
+ * bits of a few masked words, without looking at the cells one by one.
+ * Each animal species also has a bitboard of its males, so that a female
+ * can tell whether there is a male close enough to breed with.
+ * The ages of the plants are kept apart, in the field's PlantLayer.
  * 
  * @author David J. Barnes and Michael Köllinga and Reibjok Othow and Kwan Yui Chiu
  * @version 27/02/2022
@@ -14,28 +31,88 @@ import java.util.Random;
 public class Field
 {
     // A random number generator for providing random locations.
-    private static final Random rand = Randomizer.getRandom();
+    // The number of precomputed visiting orders for each distance.
+    private static final int VISITING_ORDERS = 64;
+    // The species code of an empty cell.
+    public static final byte EMPTY = 0;
+    // Accepts empty cells.
+    private static final NeighbourVisitor<Field> FREE =
+        (field, index) -> field.species[index] == EMPTY;
     
     // The depth and width of the field.
     private int depth, width;
-    // Storage for the animals.
-    private Object[][] field;
+    // The species code of the entity in each cell, in row-major order.
+    private byte[] species;
+    // The slot of the entity in each cell, in row-major order.
+    private int[] slots;
+    // The kind of entity for each species code.
+    private Entity[] kinds;
+    // The step at which the entity in each cell was placed there.
+    private int[] placedAt;
+    // The number of words in each row of a bitboard.
+    private int wordsPerRow;
+    // The bitboard of each species code, or null if it has none. Bits are
+    // set atomically, as cells sharing a word may be changed by different
+    // threads.
+    private AtomicLongArray[] boards;
+    // The bitboard of the males of each animal species code, or null if it has none.
+    private AtomicLongArray[] maleBoards;
+    // The bitboard of the occupied cells.
+    private AtomicLongArray occupied;
+    // One bit per cell, in row-major order: whether the cell has changed
+    // since the changed cells were last taken.
+    private AtomicLongArray changed;
+    // The canonical location of each cell, in row-major order. Each is
+    // created the first time it is needed and then shared.
+    private Location[] locations;
     //The weather condition within the simulation
     private Weather weather;
     //the number of steps that the simulation has run
     private int step;
+    // The run of the simulation, which is part of the identity of the
+    // random streams drawn from during a step.
+    private int run;
+    // The plants of the field.
+    private PlantLayer plants;
+    // Visiting orders of the cells around a location, by distance. Each
+    // order holds the row and column offsets of the cells, interleaved.
+    private volatile int[][][] visitingOrders;
     /**
      * Represent a field of the given dimensions.
      * @param depth The depth of the field.
      * @param width The width of the field.
      */
     public Field(int depth, int width)
+    {
+        this(depth, width, Randomizer.getStreams());
+    }
+    
+    /**
+     * Represent a field of the given dimensions, whose weather is drawn
+     * from the given random streams.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param streams The random streams of the simulation.
+     */
+    public Field(int depth, int width, RandomStreams streams)
     {
         this.depth = depth;
         this.width = width;
         this.step = 0;
-        this.weather = new Weather();
-        field = new Object[depth][width];
+        this.weather = new Weather(streams);
+        species = new byte[depth * width];
+        slots = new int[depth * width];
+        kinds = new Entity[Byte.MAX_VALUE + 1];
+        placedAt = new int[depth * width];
+        wordsPerRow = (width + 63) / 64;
+        boards = new AtomicLongArray[Byte.MAX_VALUE + 1];
+        maleBoards = new AtomicLongArray[Byte.MAX_VALUE + 1];
+        occupied = new AtomicLongArray(depth * wordsPerRow);
+        changed = new AtomicLongArray((depth * width + 63) / 64);
+        markAllChanged();
+        locations = new Location[depth * width];
+        visitingOrders = new int[0][][];
+        plants = new PlantLayer(this);
     }
     
     /**
@@ -43,7 +120,67 @@ public class Field
      */
     public void increaseStep(){
         step++;
-        this.weather.update();
+        this.weather.update(run, step);
+    }
+    
+    /**
+     * Start a new run: go back to step 0 and draw the weather afresh
+     * from the streams of the run.
+     * @param run The number of the run.
+     */
+    public void startRun(int run)
+    {
+        this.run = run;
+        setStep(0);
+        weather.start(run);
+    }
+    
+    /**
+     * Return the run the field is in.
+     * @return The number of the run.
+     */
+    public int getRun()
+    {
+        return run;
+    }
+    
+    /**
+     * Set the run the field is in, as when restoring a checkpoint.
+     * @param run The number of the run.
+     */
+    public void setRun(int run)
+    {
+        this.run = run;
+    }
+    
+    /**
+     * Return the number of steps the field has been through.
+     * @return The current step.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+    
+    /**
+     * Set the number of steps the field has been through, as when
+     * restoring a checkpoint. No entity counts as having been placed
+     * during the step.
+     * @param step The step.
+     */
+    public void setStep(int step)
+    {
+        this.step = step;
+        Arrays.fill(placedAt, Integer.MIN_VALUE);
+    }
+    
+    /**
+     * Return the weather of the field.
+     * @return The weather.
+     */
+    public Weather getWeather()
+    {
+        return weather;
     }
     
     /**
@@ -58,11 +195,112 @@ public class Field
      */
     public void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                field[row][col] = null;
+        Arrays.fill(species, EMPTY);
+        for(AtomicLongArray board : boards) {
+            if(board != null) {
+                clearBoard(board);
+            }
+        }
+        for(AtomicLongArray board : maleBoards) {
+            if(board != null) {
+                clearBoard(board);
+            }
+        }
+        clearBoard(occupied);
+        plants.clear();
+        markAllChanged();
+    }
+    
+    /**
+     * Register a kind of entity, so that its species code can be
+     * mapped back to it.
+     * @param kind The kind of entity.
+     */
+    public void register(Entity kind)
+    {
+        kinds[kind.getSpeciesCode()] = kind;
+        if(boards[kind.getSpeciesCode()] == null) {
+            boards[kind.getSpeciesCode()] = new AtomicLongArray(depth * wordsPerRow);
+            if(kind instanceof Animal) {
+                maleBoards[kind.getSpeciesCode()] = new AtomicLongArray(depth * wordsPerRow);
+            }
+        }
+    }
+    
+    /**
+     * Return how far from its cell any entity of the field can look at
+     * or change a cell.
+     * @return The largest reach of the kinds registered, at least 1.
+     */
+    public int getReach()
+    {
+        int reach = 1;
+        for(Entity kind : kinds) {
+            if(kind != null) {
+                reach = Math.max(reach, kind.getReach());
             }
         }
+        return reach;
+    }
+    
+    /**
+     * Return the plants of the field.
+     * @return The plant layer.
+     */
+    public PlantLayer getPlants()
+    {
+        return plants;
+    }
+    
+    /**
+     * Return the kind of entity with the given species code.
+     * @param code The species code.
+     * @return The kind of entity, or null for Field.EMPTY.
+     */
+    public Entity getKind(byte code)
+    {
+        return kinds[code];
+    }
+    
+    /**
+     * Return the row-major index of a location. Cells are numbered from
+     * 0 to depth * width - 1.
+     * @param location The location.
+     * @return The index of its cell.
+     */
+    public int getIndex(Location location)
+    {
+        return location.getRow() * width + location.getCol();
+    }
+    
+    /**
+     * Return the canonical location of the cell with the given index.
+     * @param index The row-major index of the cell.
+     * @return The location of the cell.
+     */
+    public Location getLocation(int index)
+    {
+        return getLocation(index / width, index % width);
+    }
+    
+    /**
+     * Return the canonical location of the given cell. The same
+     * object is returned every time, so callers need not create one.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The location of the cell.
+     */
+    public Location getLocation(int row, int col)
+    {
+        int index = row * width + col;
+        Location location = locations[index];
+        if(location == null) {
+            // Locations are immutable, so a race here can at worst
+            // create an equal location twice.
+            location = new Location(row, col);
+            locations[index] = location;
+        }
+        return location;
     }
     
     /**
@@ -71,38 +309,148 @@ public class Field
      */
     public void clear(Location location)
     {
-        field[location.getRow()][location.getCol()] = null;
+        clear(location.getRow(), location.getCol());
+    }
+    
+    /**
+     * Clear the given location.
+     * @param row Row coordinate of the location.
+     * @param col Column coordinate of the location.
+     */
+    public void clear(int row, int col)
+    {
+        int index = row * width + col;
+        byte old = species[index];
+        species[index] = EMPTY;
+        if(old != EMPTY) {
+            clearBit(boards[old], row, col);
+            if(maleBoards[old] != null) {
+                clearBit(maleBoards[old], row, col);
+            }
+            clearBit(occupied, row, col);
+        }
+        markChanged(index);
     }
     
     /**
      * Place an animal at the given location.
      * If there is already an animal at the location it will
      * be lost.
-     * @param animal The animal to be placed.
+     * @param kind The kind of the animal to be placed.
+     * @param slot The slot of the animal in the columns of its kind.
      * @param row Row coordinate of the location.
      * @param col Column coordinate of the location.
      */
-    public void place(Object animal, int row, int col)
+    public void place(Entity kind, int slot, int row, int col)
     {
-        place(animal, new Location(row, col));
+        int index = row * width + col;
+        byte old = species[index];
+        byte code = kind.getSpeciesCode();
+        species[index] = code;
+        slots[index] = slot;
+        placedAt[index] = step;
+        if(old != code) {
+            if(old != EMPTY) {
+                clearBit(boards[old], row, col);
+                if(maleBoards[old] != null) {
+                    clearBit(maleBoards[old], row, col);
+                }
+            }
+            setBit(boards[code], row, col);
+            setBit(occupied, row, col);
+        }
+        AtomicLongArray males = maleBoards[code];
+        if(males != null) {
+            if(kind.isFemale(slot)) {
+                clearBit(males, row, col);
+            }
+            else {
+                setBit(males, row, col);
+            }
+        }
+        markChanged(index);
     }
     
     /**
      * Place an animal at the given location.
      * If there is already an animal at the location it will
      * be lost.
-     * @param animal The animal to be placed.
+     * @param kind The kind of the animal to be placed.
+     * @param slot The slot of the animal in the columns of its kind.
      * @param location Where to place the animal.
      */
-    public void place(Object animal, Location location)
+    public void place(Entity kind, int slot, Location location)
+    {
+        place(kind, slot, location.getRow(), location.getCol());
+    }
+    
+    /**
+     * Check whether the entity in the given cell was placed there during
+     * the current step, either because it was born or because it has
+     * already moved. Such an entity does not act again in this step.
+     * @param index The row-major index of the cell.
+     * @return true if the entity arrived in the cell during this step.
+     */
+    public boolean isPlacedThisStep(int index)
+    {
+        return placedAt[index] == step;
+    }
+    
+    /**
+     * Take the set of cells that have changed since the last call, and
+     * start a new, empty set. Called between steps.
+     * @param cells The array to copy the changed cells into, one bit per
+     *              cell in row-major order; at least (depth * width + 63) / 64
+     *              long.
+     */
+    public void takeChangedCells(long[] cells)
     {
-        field[location.getRow()][location.getCol()] = animal;
+        for(int word = 0; word < changed.length(); word++) {
+            cells[word] = changed.getAndSet(word, 0);
+        }
+    }
+    
+    /**
+     * Record that a cell has changed. Cells in the same word may be
+     * changed by different threads, so the bit is set atomically.
+     * @param index The row-major index of the cell.
+     */
+    private void markChanged(int index)
+    {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if((changed.get(word) & bit) == 0) {
+            changed.accumulateAndGet(word, bit, (bits, mark) -> bits | mark);
+        }
     }
     
     /**
-     * Return the animal at the given location, if any.
+     * Record that every cell has changed.
+     */
+    private void markAllChanged()
+    {
+        int cells = depth * width;
+        for(int word = 0; word < changed.length(); word++) {
+            int remaining = cells - word * 64;
+            changed.set(word, remaining >= 64 ? -1L : (1L << remaining) - 1);
+        }
+    }
+    
+    /**
+     * Copy the species code of every cell, in row-major order.
+     * @param cells The array to copy into; at least depth * width long.
+     */
+    public void copyCells(byte[] cells)
+    {
+        System.arraycopy(species, 0, cells, 0, species.length);
+    }
+    
+    /**
+     * Return the kind of animal at the given location, if any.
+     * Individual animals are not objects; the kind, such as the Fox
+     * object of the simulation, stands in for them.
      * @param location Where in the field.
-     * @return The animal at the given location, or null if there is none.
+     * @return The kind of animal at the given location, or null if there is none.
      */
     public Object getObjectAt(Location location)
     {
@@ -110,41 +458,97 @@ public class Field
     }
     
     /**
-     * Return the animal at the given location, if any.
+     * Return the kind of animal at the given location, if any.
      * @param row The desired row.
      * @param col The desired column.
-     * @return The animal at the given location, or null if there is none.
+     * @return The kind of animal at the given location, or null if there is none.
      */
     public Object getObjectAt(int row, int col)
     {
-        return field[row][col];
+        return kinds[species[row * width + col]];
+    }
+    
+    /**
+     * Return the kind of animal in the cell with the given index, if any.
+     * @param index The row-major index of the cell.
+     * @return The kind of animal in the cell, or null if there is none.
+     */
+    public Object getObjectAt(int index)
+    {
+        return kinds[species[index]];
+    }
+    
+    /**
+     * Return the slot of the animal at the given location, within the
+     * columns of its species. Only meaningful if the cell is occupied.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The slot of the animal.
+     */
+    public int getSlotAt(int row, int col)
+    {
+        return slots[row * width + col];
+    }
+    
+    /**
+     * Return the slot of the animal in the cell with the given index.
+     * Only meaningful if the cell is occupied.
+     * @param index The row-major index of the cell.
+     * @return The slot of the animal.
+     */
+    public int getSlotAt(int index)
+    {
+        return slots[index];
+    }
+    
+    /**
+     * Return the code of the species at the given location.
+     * This reads a single byte and does not touch the animal itself.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The species code, or EMPTY if there is nothing there.
+     */
+    public byte getSpeciesAt(int row, int col)
+    {
+        return species[row * width + col];
+    }
+    
+    /**
+     * Return the code of the species in the cell with the given index.
+     * Cells are numbered in row-major order, from 0 to depth * width - 1,
+     * so the whole grid can be scanned with a single loop.
+     * @param index The row-major index of the cell.
+     * @return The species code, or EMPTY if there is nothing there.
+     */
+    public byte getSpeciesAt(int index)
+    {
+        return species[index];
     }
     
     /**
-     * Generate a random location that is adjacent to the
-     * given location, or is the same location.
-     * The returned location will be within the valid bounds
-     * of the field.
-     * @param location The location from which to generate an adjacency.
-     * @return A valid location within the grid area.
+     * Check whether the given location is empty.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return true if there is nothing at the location.
      */
-    public Location randomAdjacentLocation(Location location)
+    public boolean isFree(int row, int col)
     {
-        List<Location> adjacent = adjacentLocations(location);
-        return adjacent.get(0);
+        return species[row * width + col] == EMPTY;
     }
     
     /**
      * Get a shuffled list of the free adjacent locations.
      * @param location Get locations adjacent to this.
+     * @param distance The furthest distance of the locations.
+     * @param random The random generator that shuffles the list.
      * @return A list of free adjacent locations.
      */
-    public List<Location> getFreeAdjacentLocations(Location location)
+    public List<Location> getFreeAdjacentLocations(Location location, int distance, Random random)
     {
         List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
+        List<Location> adjacent = adjacentLocations(location, distance, random);
         for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
+            if(isFree(next.getRow(), next.getCol())) {
                 free.add(next);
             }
         }
@@ -152,50 +556,287 @@ public class Field
     }
     
     /**
-     * Get a shuffled list of the free adjacent locations.
-     * @param location Get locations adjacent to this.
-     * @return A list of free adjacent locations.
+     * Try to find a free location within the given distance of the
+     * given location, using the given random generator to choose
+     * between the free locations.
+     * @param location The location from which to search.
+     * @param distance The furthest distance that may be returned.
+     * @param random The random generator to use.
+     * @return A random free location, or null if there is none.
      */
-    public List<Location> getFreeAdjacentLocations(Location location, int distance)
+    public Location freeAdjacentLocation(Location location, int distance, Random random)
     {
-        List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location, distance);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) == null) {
-                free.add(next);
+        int row = location.getRow();
+        int col = location.getCol();
+        if(countFreeAdjacent(row, col, distance) == 0) {
+            return null;
+        }
+        return findAdjacent(row, col, distance, this, FREE, random);
+    }
+    
+    /**
+     * Search the cells around a location, like findAdjacent, but only if
+     * one of the given species is within the distance, as shown by the
+     * bitboards. Otherwise no cell is visited and no random number is
+     * drawn, and null is returned.
+     * @param location The location at the centre.
+     * @param distance How far to search.
+     * @param species The species codes the visitor can accept.
+     * @param context The context object passed to the visitor.
+     * @param visitor The test applied to each cell.
+     * @param random The random generator to use.
+     * @return The first cell accepted by the visitor, or null if there is none.
+     */
+    public <T> Location findAdjacent(Location location, int distance, byte[] species, T context,
+                                     NeighbourVisitor<T> visitor, Random random)
+    {
+        int row = location.getRow();
+        int col = location.getCol();
+        for(byte code : species) {
+            if(countAdjacent(row, col, distance, code) > 0) {
+                return findAdjacent(row, col, distance, context, visitor, random);
             }
         }
-        return free;
+        return null;
     }
     
     /**
-     * Try to find a free location that is adjacent to the
-     * given location. If there is none, return null.
-     * The returned location will be within the valid bounds
-     * of the field.
-     * @param location The location from which to generate an adjacency.
-     * @return A valid location within the grid area.
+     * Count the individuals of a species around a cell, not counting
+     * the cell itself.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param distance How far to count.
+     * @param code The species code.
+     * @return The number of cells within the distance holding the species.
      */
-    public Location freeAdjacentLocation(Location location)
+    public int countAdjacent(int row, int col, int distance, byte code)
     {
-        // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        AtomicLongArray board = boards[code];
+        if(board == null) {
+            return 0;
         }
-        else {
-            return null;
+        return countWindow(board, row, col, distance);
+    }
+    
+    /**
+     * Check whether there is a male of a species around a location. This
+     * answers the same question as a search of the cells around for a
+     * male, but only counts the bits of the males' bitboard: a few words
+     * for each row within the distance, however many cells that covers.
+     * @param location The location at the centre.
+     * @param distance How far to look.
+     * @param code The species code.
+     * @return true if a male of the species is within the distance.
+     */
+    public boolean isMaleAdjacent(Location location, int distance, byte code)
+    {
+        AtomicLongArray board = maleBoards[code];
+        return board != null
+               && countWindow(board, location.getRow(), location.getCol(), distance) > 0;
+    }
+    
+    /**
+     * Count the free cells around a cell.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param distance How far to count.
+     * @return The number of free cells within the distance.
+     */
+    public int countFreeAdjacent(int row, int col, int distance)
+    {
+        int rows = Math.min(depth - 1, row + distance) - Math.max(0, row - distance) + 1;
+        int cols = Math.min(width - 1, col + distance) - Math.max(0, col - distance) + 1;
+        return rows * cols - 1 - countWindow(occupied, row, col, distance);
+    }
+    
+    /**
+     * Count the bits of a bitboard in the square around a cell, not
+     * counting the cell itself.
+     * @param board The bitboard.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param distance How far the square reaches from the cell.
+     * @return The number of bits set.
+     */
+    private int countWindow(AtomicLongArray board, int row, int col, int distance)
+    {
+        int left = Math.max(0, col - distance);
+        int right = Math.min(width - 1, col + distance);
+        int firstWord = left >>> 6;
+        int lastWord = right >>> 6;
+        long leftMask = -1L << left;
+        long rightMask = -1L >>> (63 - (right & 63));
+        int count = 0;
+        for(int r = Math.max(0, row - distance); r <= Math.min(depth - 1, row + distance); r++) {
+            int rowStart = r * wordsPerRow;
+            if(firstWord == lastWord) {
+                count += Long.bitCount(board.get(rowStart + firstWord) & leftMask & rightMask);
+            }
+            else {
+                count += Long.bitCount(board.get(rowStart + firstWord) & leftMask);
+                for(int word = firstWord + 1; word < lastWord; word++) {
+                    count += Long.bitCount(board.get(rowStart + word));
+                }
+                count += Long.bitCount(board.get(rowStart + lastWord) & rightMask);
+            }
+        }
+        if((board.get(row * wordsPerRow + (col >>> 6)) & (1L << col)) != 0) {
+            count--;
+        }
+        return count;
+    }
+    
+    /**
+     * Set the bit of a cell in a bitboard.
+     * @param board The bitboard.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     */
+    private void setBit(AtomicLongArray board, int row, int col)
+    {
+        int word = row * wordsPerRow + (col >>> 6);
+        long bit = 1L << col;
+        if((board.get(word) & bit) == 0) {
+            board.accumulateAndGet(word, bit, (bits, mark) -> bits | mark);
+        }
+    }
+    
+    /**
+     * Clear the bit of a cell in a bitboard.
+     * @param board The bitboard.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     */
+    private void clearBit(AtomicLongArray board, int row, int col)
+    {
+        int word = row * wordsPerRow + (col >>> 6);
+        long bit = 1L << col;
+        if((board.get(word) & bit) != 0) {
+            board.accumulateAndGet(word, ~bit, (bits, mask) -> bits & mask);
         }
     }
+    
+    /**
+     * Clear every bit of a bitboard.
+     * @param board The bitboard.
+     */
+    private static void clearBoard(AtomicLongArray board)
+    {
+        for(int word = 0; word < board.length(); word++) {
+            board.set(word, 0);
+        }
+    }
+    
+    /**
+     * Visit the cells within the given distance of a location, in a random
+     * order chosen with the given random generator, until the visitor
+     * accepts one.
+     * @param location The location whose neighbourhood is searched.
+     * @param distance The furthest distance of the cells to visit.
+     * @param context The context handed to the visitor.
+     * @param visitor Decides whether to stop at a cell.
+     * @param random The random generator that chooses the order.
+     * @return The location the visitor stopped at, or null if it stopped nowhere.
+     */
+    public <T> Location findAdjacent(Location location, int distance, T context,
+                                     NeighbourVisitor<T> visitor, Random random)
+    {
+        return findAdjacent(location.getRow(), location.getCol(), distance, context, visitor, random);
+    }
+    
+    /**
+     * Visit the cells within the given distance of a cell, in a random
+     * order, until the visitor accepts one.
+     * @param row The row of the cell whose neighbourhood is searched.
+     * @param col The column of the cell whose neighbourhood is searched.
+     * @param distance The furthest distance of the cells to visit.
+     * @param context The context handed to the visitor.
+     * @param visitor Decides whether to stop at a cell.
+     * @param random The random generator that chooses the order.
+     * @return The location the visitor stopped at, or null if it stopped nowhere.
+     */
+    public <T> Location findAdjacent(int row, int col, int distance, T context,
+                                     NeighbourVisitor<T> visitor, Random random)
+    {
+        int[][] orders = getVisitingOrders(distance);
+        int[] order = orders[random.nextInt(orders.length)];
+        for(int i = 0; i < order.length; i += 2) {
+            int nextRow = row + order[i];
+            int nextCol = col + order[i + 1];
+            if(nextRow >= 0 && nextRow < depth && nextCol >= 0 && nextCol < width
+               && visitor.visit(context, nextRow * width + nextCol)) {
+                return getLocation(nextRow, nextCol);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Return the precomputed visiting orders for the given distance,
+     * creating them the first time they are asked for.
+     * @param distance The distance of the neighbourhood. Must be at least one.
+     * @return Shuffled copies of the offsets of the neighbourhood.
+     */
+    private int[][] getVisitingOrders(int distance)
+    {
+        int[][][] orders = visitingOrders;
+        if(distance < orders.length && orders[distance] != null) {
+            return orders[distance];
+        }
+        return createVisitingOrders(distance);
+    }
+    
+    /**
+     * Create the visiting orders for the given distance. The table is
+     * replaced rather than changed, so that readers never see it half built.
+     * The orders are shuffled with a generator of their own, seeded by the
+     * distance, so they do not depend on which distance is asked for first.
+     * @param distance The distance of the neighbourhood. Must be at least one.
+     * @return Shuffled copies of the offsets of the neighbourhood.
+     */
+    private synchronized int[][] createVisitingOrders(int distance)
+    {
+        int[][][] orders = Arrays.copyOf(visitingOrders, Math.max(visitingOrders.length, distance + 1));
+        if(orders[distance] == null) {
+            Random shuffler = new Random(distance);
+            int side = 2 * distance + 1;
+            int cells = side * side - 1;
+            orders[distance] = new int[VISITING_ORDERS][2 * cells];
+            for(int[] order : orders[distance]) {
+                int i = 0;
+                for(int roffset = -distance; roffset <= distance; roffset++) {
+                    for(int coffset = -distance; coffset <= distance; coffset++) {
+                        if(roffset != 0 || coffset != 0) {
+                            order[i++] = roffset;
+                            order[i++] = coffset;
+                        }
+                    }
+                }
+                // Shuffle the pairs of offsets.
+                for(int j = cells - 1; j > 0; j--) {
+                    int k = shuffler.nextInt(j + 1);
+                    int swapRow = order[2 * j];
+                    int swapCol = order[2 * j + 1];
+                    order[2 * j] = order[2 * k];
+                    order[2 * j + 1] = order[2 * k + 1];
+                    order[2 * k] = swapRow;
+                    order[2 * k + 1] = swapCol;
+                }
+            }
+            visitingOrders = orders;
+        }
+        return visitingOrders[distance];
+    }
 
     /**
      * Return a shuffled list of locations adjacent to the given one.
      * The list will not include the location itself.
      * All locations will lie within the grid.
      * @param location The location from which to generate adjacencies.
+     * @param random The random generator that shuffles the list.
      * @return A list of locations adjacent to that given.
      */
-    public List<Location> adjacentLocations(Location location)
+    public List<Location> adjacentLocations(Location location, Random random)
     {
         assert location != null : "Null location passed to adjacentLocations";
         // The list of locations to be returned.
@@ -210,7 +851,7 @@ public class Field
                         int nextCol = col + coffset;
                         // Exclude invalid locations and the original location.
                         if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
+                            locations.add(getLocation(nextRow, nextCol));
                         }
                     }
                 }
@@ -218,7 +859,7 @@ public class Field
             
             // Shuffle the list. Several other methods rely on the list
             // being in a random order.
-            Collections.shuffle(locations, rand);
+            Collections.shuffle(locations, random);
         }
         return locations;
     }
@@ -230,9 +871,10 @@ public class Field
      * All locations will lie within the grid.
      * @param location The location from which to generate adjacencies.
      * @param distance the distance from the furthest location that should be returned 
+     * @param random The random generator that shuffles the list.
      * @return A list of locations adjacent to that given.
      */
-    public List<Location> adjacentLocations(Location location, int Distance)
+    public List<Location> adjacentLocations(Location location, int Distance, Random random)
     {
         assert location != null : "Null location passed to adjacentLocations";
         // The list of locations to be returned.
@@ -247,14 +889,14 @@ public class Field
                         int nextCol = col + coffset;
                         // Exclude invalid locations and the original location.
                         if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
+                            locations.add(getLocation(nextRow, nextCol));
                         }
                     }
                 }
             }
             // Shuffle the list. Several other methods rely on the list
             // being in a random order.
-            Collections.shuffle(locations, rand);
+            Collections.shuffle(locations, random);
         }
         
         
@@ -296,4 +938,12 @@ public class Field
     public String getWeatherCondition(){
         return this.weather.getDescription();
     }
+    
+    /**
+     * Return the code of the weather condition
+     * @return Weather.SUNNY, Weather.RAINING or Weather.FOGGY
+     */
+    public int getWeatherCode(){
+        return this.weather.getCode();
+    }
 }
@@ -1,18 +1,22 @@
 import java.awt.Color;
-import java.util.HashMap;
 
 /**
  * This class collects and provides some statistical data on the state 
  * of a field. It is flexible: it will create and maintain a counter 
- * for any class of object that is found within the field.
+ * for any species registered in the SpeciesRegistry. The counters are
+ * kept in an array indexed by species id.
+ * The counts are taken from the species of the field, which keep them
+ * up to date as individuals are born and die, so collecting them does
+ * not depend on the size of the field.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
  */
 public class FieldStats
 {
-    // Counters for each type of entity (fox, rabbit, etc.) in the simulation.
-    private HashMap<Class, Counter> counters;
+    // Counters for each type of entity (fox, rabbit, etc.) in the simulation,
+    // indexed by species id. Null for species not seen yet.
+    private Counter[] counters;
     // Whether the counters are currently up to date.
     private boolean countsValid;
 
@@ -23,7 +27,7 @@ public class FieldStats
     {
         // Set up a collection for counters for each type of animal that
         // we might find
-        counters = new HashMap<>();
+        counters = new Counter[SpeciesRegistry.MAX_SPECIES + 1];
         countsValid = true;
     }
 
@@ -37,12 +41,13 @@ public class FieldStats
         if(!countsValid) {
             generateCounts(field);
         }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            buffer.append(info.getName());
-            buffer.append(": ");
-            buffer.append(info.getCount());
-            buffer.append(' ');
+        for(Counter info : counters) {
+            if(info != null) {
+                buffer.append(info.getName());
+                buffer.append(": ");
+                buffer.append(info.getCount());
+                buffer.append(' ');
+            }
         }
         return buffer.toString();
     }
@@ -52,13 +57,24 @@ public class FieldStats
      * @return  An int with the number for this class.
      */
     public int getPopulationCount(Field field, Class key)
+    {
+        return getPopulationCount(field, SpeciesRegistry.find(key));
+    }
+    
+    /**
+     * Get the number of individuals in the population of a given species.
+     * @param field The field to count.
+     * @param species The id of the species.
+     * @return The number of individuals of the species.
+     */
+    public int getPopulationCount(Field field, int species)
     {
         if(!countsValid) {
             generateCounts(field);
         }
 
-        Counter counter = counters.get(key);
-        return counter.getCount();
+        Counter counter = counters[species];
+        return counter == null ? 0 : counter.getCount();
     }
     
     /**
@@ -68,9 +84,10 @@ public class FieldStats
     public void reset()
     {
         countsValid = false;
-        for(Class key : counters.keySet()) {
-            Counter count = counters.get(key);
-            count.reset();
+        for(Counter count : counters) {
+            if(count != null) {
+                count.reset();
+            }
         }
     }
 
@@ -80,14 +97,35 @@ public class FieldStats
      */
     public void incrementCount(Class animalClass)
     {
-        Counter count = counters.get(animalClass);
+        incrementCount(SpeciesRegistry.find(animalClass));
+    }
+    
+    /**
+     * Increment the count for one species.
+     * @param species The id of the species. Field.EMPTY is not counted.
+     */
+    public void incrementCount(int species)
+    {
+        if(species != Field.EMPTY) {
+            getCounter(species).increment();
+        }
+    }
+    
+    /**
+     * Return the counter of a species, creating it if there is none yet.
+     * @param species The id of the species.
+     * @return The counter of the species.
+     */
+    private Counter getCounter(int species)
+    {
+        Counter count = counters[species];
         if(count == null) {
             // We do not have a counter for this species yet.
             // Create one.
-            count = new Counter(animalClass.getName());
-            counters.put(animalClass, count);
+            count = new Counter(SpeciesRegistry.getName(species));
+            counters[species] = count;
         }
-        count.increment();
+        return count;
     }
 
     /**
@@ -110,9 +148,8 @@ public class FieldStats
         if(!countsValid) {
             generateCounts(field);
         }
-        for(Class key : counters.keySet()) {
-            Counter info = counters.get(key);
-            if(info.getCount() > 0) {
+        for(Counter info : counters) {
+            if(info != null && info.getCount() > 0) {
                 nonZero++;
             }
         }
@@ -120,21 +157,18 @@ public class FieldStats
     }
     
     /**
-     * Generate counts of the number of foxes and rabbits.
-     * These are not kept up to date as foxes and rabbits
-     * are placed in the field, but only when a request
-     * is made for the information.
+     * Collect the number of individuals of every species in the field.
+     * Each species keeps its own count as individuals are born and die,
+     * so this only copies one number per species.
      * @param field The field to generate the stats for.
      */
     private void generateCounts(Field field)
     {
         reset();
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    incrementCount(animal.getClass());
-                }
+        for(int species = 1; species <= SpeciesRegistry.size(); species++) {
+            Entity kind = field.getKind((byte) species);
+            if(kind != null) {
+                getCounter(species).setCount(kind.getCount());
             }
         }
         countsValid = true;
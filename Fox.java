@@ -1,10 +1,7 @@
-import java.util.List;
-import java.util.Iterator;
-import java.util.Random;
-
 /**
  * A simple model of a fox.
  * Foxes age, move, eat rabbits or mice or snakes, and die.
+ * They hunt only at night.
  * 
  * @author David J. Barnes and Michael Kölling and Reibjok Othow and Kwan Yui Chiu
  * @version 27/02/2022
@@ -21,208 +18,31 @@ public class Fox extends Consumer
     private static final double BREEDING_PROBABILITY = 0.11;
     // The maximum number of births.
     private static final int MAX_LITTER_SIZE = 3;
+    // How far a female looks for a male to breed with.
+    private static final int MATE_DISTANCE = 2;
+    // How far from its mother a young one can be born.
+    private static final int BIRTH_DISTANCE = 2;
     // The food value of a single rabbit. In effect, this is the
     // number of steps a fox can go before it has to eat again.
-    private static final int RABBIT_FOOD_VALUE = 50;
+    static final int RABBIT_FOOD_VALUE = 50;
     // number of steps a fox can go before it has to eat again.
-    private static final int MOUSE_FOOD_VALUE = 40;
+    static final int MOUSE_FOOD_VALUE = 40;
     // number of steps a fox can go before it has to eat again.
-    private static final int SNAKE_FOOD_VALUE = 40;
-    // A shared random number generator to control breeding.
-    private static final Random rand = Randomizer.getRandom();
+    static final int SNAKE_FOOD_VALUE = 40;
+    // Foxes start with a rabbit's worth of food, hunt only at night
+    // and move at any time.
+    private static final SpeciesSpec SPEC =
+        new SpeciesSpec(BREEDING_AGE, MAX_AGE, BREEDING_PROBABILITY, MAX_LITTER_SIZE,
+                        MATE_DISTANCE, BIRTH_DISTANCE, RABBIT_FOOD_VALUE, true,
+                        SpeciesSpec.Activity.NIGHT, SpeciesSpec.Activity.ALWAYS);
     
-    // Individual characteristics (instance fields).
-    // The fox's age.
-    private int age;
-    // The fox's food level, which is increased by eating rabbits.
-    private int foodLevel;
-
     /**
-     * Create a fox. A fox can be created as a new born (age zero
-     * and not hungry) or with a random age and food level.
-     * 
-     * @param randomAge If true, the fox will have random age and hunger level.
-     * @param female whether or not the fox is female
-     * @param field The field currently occupied.
-     * @param location The location within the field.
+     * Create the fox species of a simulation.
+     * @param field The field the foxes live in.
+     * @param store The store that holds the foxes.
      */
-    public Fox(boolean randomAge,boolean female, Field field, Location location)
+    public Fox(Field field, EntityStore store)
     {
-        super(female, field, location);
-        if(randomAge) {
-            age = rand.nextInt(MAX_AGE);
-            foodLevel = rand.nextInt(RABBIT_FOOD_VALUE);
-        }
-        else {
-            age = 0;
-            foodLevel = RABBIT_FOOD_VALUE;
-        }
-    }
-    
-    /**
-     * This is what the fox does most of the time: it hunts for
-     * rabbits, mice or snakes. In the process, it might breed, die of hunger,
-     * or die of old age.
-     * @param field The field currently occupied.
-     * @param newFoxes A list to return newly born foxes.
-     */
-    public void act(List<Entity> newFoxes)
-    {
-        incrementAge();
-        incrementHunger();
-        if(isAlive()) {
-            if(isFemale()){
-                giveBirth(newFoxes);
-            }       
-            // Move towards a source of food if found.
-            Location newLocation = null;
-            if(!getField().isDay()){
-                newLocation = findFood();
-            }
-            if(newLocation == null) { 
-                // No food found - try to move to a free location.
-                newLocation = getField().freeAdjacentLocation(getLocation());
-            }
-            // See if it was possible to move.
-            if(newLocation != null) {
-                setLocation(newLocation);
-            }
-            else {
-                // Overcrowding.
-                setDead();
-            }
-        }
-    }
-
-    /**
-     * Increase the age. This could result in the fox's death.
-     */
-    private void incrementAge()
-    {
-        age++;
-        if(age > MAX_AGE) {
-            setDead();
-        }
-    }
-    
-    /**
-     * Make this fox more hungry. This could result in the fox's death.
-     */
-    private void incrementHunger()
-    {
-        foodLevel--;
-        if(foodLevel <= 0) {
-            setDead();
-        }
-    }
-    
-    /**
-     * Look for rabbits, mice or snakes adjacent to the current location.
-     * Only the first live animal is eaten.
-     * @return Where food was found, or null if it wasn't.
-     */
-    protected Location findFood()
-    {
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation());
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Rabbit) {
-                Rabbit rabbit = (Rabbit) animal;
-                if(rabbit.isAlive()) { 
-                    rabbit.setDead();
-                    foodLevel = RABBIT_FOOD_VALUE;
-                    return where;
-                }
-            }
-            else if(animal instanceof Mouse) {
-                Mouse mouse = (Mouse) animal;
-                if(mouse.isAlive()) { 
-                    mouse.setDead();
-                    foodLevel = MOUSE_FOOD_VALUE;
-                    return where;
-                }
-            }
-            else if(animal instanceof Snake) {
-                Snake snake = (Snake) animal;
-                if(snake.isAlive()) { 
-                    snake.setDead();
-                    foodLevel = SNAKE_FOOD_VALUE;
-                    return where;
-                }
-            }
-            
-        }
-        return null;
-    }
-    
-    /**
-     * Check whether or not this fox is to give birth at this step.
-     * New births will be made into free adjacent locations.
-     * @param newFoxes A list to return newly born foxes.
-     */
-    private void giveBirth(List<Entity> newFoxes)
-    {
-        // New foxes are born into adjacent locations.
-        // Get a list of adjacent free locations.
-        Field field = getField();
-        List<Location> free = field.getFreeAdjacentLocations(getLocation(), 2);
-        int births = breed();
-        for(int b = 0; b < births && free.size() > 0; b++) {
-            Location loc = free.remove(0);
-            boolean gender = rand.nextBoolean();
-            Fox young = new Fox(false,gender,field, loc);
-            newFoxes.add(young);
-        }
-    }
-        
-    /**
-     * This method checks if there is any male foxes nearby 
-     * @return boolean there is a male nearby
-     */
-    private boolean canFindMaleFox(int distance){
-        Field field = getField();
-        List<Location> adjacent = field.adjacentLocations(getLocation(),distance);
-        Iterator<Location> it = adjacent.iterator();
-        while(it.hasNext()) {
-            Location where = it.next();
-            Object animal = field.getObjectAt(where);
-            if(animal instanceof Fox) {
-                Fox fox = (Fox) animal;
-                if(!fox.isFemale()) { 
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-    
-    /**
-     * Generate a number representing the number of births,
-     * if it can breed.
-     * @return The number of births (may be zero).
-     */
-    private int breed()
-    {
-        int births = 0;
-        if(canBreed() && rand.nextDouble() <= BREEDING_PROBABILITY) {
-            births = rand.nextInt(MAX_LITTER_SIZE) + 1;
-        }
-        if (canFindMaleFox(2)){
-            return births;
-        }
-        else{
-            return 0;
-        }
-    }
-
-    /**
-     * A fox can breed if it has reached the breeding age.
-     */
-    private boolean canBreed()
-    {
-        return age >= BREEDING_AGE;
+        super(field, store, SPEC);
     }
 }
@@ -0,0 +1,246 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Keeps the recent past of a simulation, so that any of the last steps
+ * can be shown again without simulating them again. Like a video, the
+ * history is stored as a full copy of the cells - a keyframe - every so
+ * many steps, and between keyframes only the cells that changed in each
+ * step. Finding the cells at a step costs one keyframe copy plus the
+ * changes since it; moving forward from the step last found only costs
+ * the changes in between.
+ *
+ * The history holds whole segments of a keyframe and the steps after it,
+ * and drops the oldest segment when it holds more steps than it should.
+ * The steps recorded must follow each other; recording any other step
+ * starts the history again.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class FrameHistory
+{
+    // The number of bits of a change that hold the species code.
+    private static final int CODE_BITS = 7;
+
+    // The depth and width of the field.
+    private final int depth, width;
+    // The number of steps kept, at least.
+    private final int capacity;
+    // The number of steps in a segment.
+    private final int keyframeInterval;
+    // The segments, oldest first.
+    private final ArrayDeque<Segment> segments;
+    // The cells at the newest step recorded.
+    private byte[] newest;
+    // The cells of the field, copied while recording.
+    private byte[] scratch;
+    // The changes found while recording, packed as index and code.
+    private int[] changes;
+    // The cells at the step last found.
+    private byte[] cursor;
+    // The step last found, or -1 if the cursor is not at any step.
+    private int cursorStep;
+
+    /**
+     * Create an empty history.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param capacity The number of steps to keep, at least.
+     * @param keyframeInterval The number of steps from one keyframe to the next.
+     */
+    public FrameHistory(int depth, int width, int capacity, int keyframeInterval)
+    {
+        if(keyframeInterval < 1 || capacity < 1) {
+            throw new IllegalArgumentException("The capacity and keyframe interval must be positive");
+        }
+        if((long) depth * width > (Integer.MAX_VALUE >>> CODE_BITS)) {
+            throw new IllegalArgumentException("The field is too large to keep a history of");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.keyframeInterval = keyframeInterval;
+        segments = new ArrayDeque<>();
+        newest = new byte[depth * width];
+        scratch = new byte[depth * width];
+        changes = new int[64];
+        cursor = new byte[depth * width];
+        cursorStep = -1;
+    }
+
+    /**
+     * Record the state of the field after a step.
+     * @param step The step just simulated.
+     * @param field The field.
+     */
+    public synchronized void record(int step, Field field)
+    {
+        field.copyCells(scratch);
+        Segment last = segments.peekLast();
+        if(last == null || step != last.firstStep + last.size) {
+            // Not the next step: start again.
+            segments.clear();
+            cursorStep = -1;
+            last = null;
+        }
+        if(last == null || last.size == keyframeInterval) {
+            last = new Segment(step, scratch.clone(), keyframeInterval);
+            segments.addLast(last);
+        }
+        else {
+            int count = 0;
+            for(int index = 0; index < scratch.length; index++) {
+                if(scratch[index] != newest[index]) {
+                    if(count == changes.length) {
+                        changes = Arrays.copyOf(changes, count * 2);
+                    }
+                    changes[count] = index << CODE_BITS | scratch[index];
+                    count++;
+                }
+            }
+            last.changes[last.size] = Arrays.copyOf(changes, count);
+        }
+        last.counts[last.size] = countsOf(field);
+        last.weather[last.size] = (byte) field.getWeatherCode();
+        last.day[last.size] = field.isDay();
+        last.size++;
+
+        // Drop the oldest segment if enough steps are kept without it.
+        Segment oldest = segments.peekFirst();
+        int kept = last.firstStep + last.size - oldest.firstStep;
+        if(oldest != last && kept - oldest.size >= capacity) {
+            segments.removeFirst();
+        }
+
+        byte[] swap = newest;
+        newest = scratch;
+        scratch = swap;
+    }
+
+    /**
+     * Remove every step.
+     */
+    public synchronized void clear()
+    {
+        segments.clear();
+        cursorStep = -1;
+    }
+
+    /**
+     * @return The oldest step kept, or -1 if there is none.
+     */
+    public synchronized int getFirstStep()
+    {
+        return segments.isEmpty() ? -1 : segments.peekFirst().firstStep;
+    }
+
+    /**
+     * @return The newest step kept, or -1 if there is none.
+     */
+    public synchronized int getLastStep()
+    {
+        Segment last = segments.peekLast();
+        return last == null ? -1 : last.firstStep + last.size - 1;
+    }
+
+    /**
+     * Return the state of the field at a step kept. Every cell of the
+     * frame counts as changed.
+     * @param step The step.
+     * @return The frame of the step, or null if the step is not kept.
+     */
+    public synchronized FrameSnapshot getFrame(int step)
+    {
+        Segment segment = find(step);
+        if(segment == null) {
+            return null;
+        }
+        if(cursorStep < segment.firstStep || cursorStep > step) {
+            System.arraycopy(segment.keyframe, 0, cursor, 0, cursor.length);
+            cursorStep = segment.firstStep;
+        }
+        for(int next = cursorStep + 1; next <= step; next++) {
+            for(int change : segment.changes[next - segment.firstStep]) {
+                cursor[change >>> CODE_BITS] = (byte) (change & ((1 << CODE_BITS) - 1));
+            }
+        }
+        cursorStep = step;
+
+        int point = step - segment.firstStep;
+        return new FrameSnapshot(step, depth, width, cursor.clone(), segment.counts[point],
+                                 Weather.getDescription(segment.weather[point]),
+                                 segment.day[point] ? "Day time" : "Night time");
+    }
+
+    /**
+     * Return the segment holding a step.
+     * @param step The step.
+     * @return The segment, or null if the step is not kept.
+     */
+    private Segment find(int step)
+    {
+        Iterator<Segment> it = segments.descendingIterator();
+        while(it.hasNext()) {
+            Segment segment = it.next();
+            if(step >= segment.firstStep) {
+                return step < segment.firstStep + segment.size ? segment : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of individuals of every species in the field.
+     * @param field The field.
+     * @return The counts, by species id.
+     */
+    private static int[] countsOf(Field field)
+    {
+        int[] counts = new int[SpeciesRegistry.size() + 1];
+        for(int species = 1; species < counts.length; species++) {
+            Entity kind = field.getKind((byte) species);
+            counts[species] = kind == null ? 0 : kind.getCount();
+        }
+        return counts;
+    }
+
+    /**
+     * A keyframe and the steps that follow it.
+     */
+    private static class Segment
+    {
+        // The step of the keyframe.
+        private final int firstStep;
+        // The cells at the first step.
+        private final byte[] keyframe;
+        // The changes made by each step after the first, by position.
+        private final int[][] changes;
+        // The number of individuals of each species, by position.
+        private final int[][] counts;
+        // The weather code, by position.
+        private final byte[] weather;
+        // Whether it was day, by position.
+        private final boolean[] day;
+        // The number of steps held.
+        private int size;
+
+        /**
+         * Create a segment starting with a keyframe.
+         * @param firstStep The step of the keyframe.
+         * @param keyframe The cells at that step.
+         * @param length The number of steps the segment can hold.
+         */
+        public Segment(int firstStep, byte[] keyframe, int length)
+        {
+            this.firstStep = firstStep;
+            this.keyframe = keyframe;
+            changes = new int[length][];
+            counts = new int[length][];
+            weather = new byte[length];
+            day = new boolean[length];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+
+/**
+ * Passes the frames of a simulation to its views on the Swing event
+ * dispatch thread. The simulation publishes a snapshot after each step
+ * and carries on at once; the snapshot waits in a single slot until the
+ * event thread is free to show it. If a newer frame is published first,
+ * it takes the place of the waiting one, so the views always show the
+ * newest frame and the frames they cannot keep up with are dropped.
+ * The cells changed in a dropped frame are carried over into the frame
+ * that replaces it, so views that redraw only changed cells stay right.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class FramePipeline
+{
+    // The views the frames are shown in.
+    private final List<View> views;
+    // The newest frame not yet shown, or null if there is none.
+    private final AtomicReference<FrameSnapshot> latest;
+    // Whether the views are to be reset before the next frame is shown.
+    private final AtomicBoolean resetPending;
+    // The number of frames that were replaced before being shown.
+    private volatile long dropped;
+
+    /**
+     * Create a pipeline with no views.
+     */
+    public FramePipeline()
+    {
+        views = new CopyOnWriteArrayList<>();
+        latest = new AtomicReference<>();
+        resetPending = new AtomicBoolean();
+        dropped = 0;
+    }
+
+    /**
+     * Add a view to be shown the frames.
+     * @param view The view to add.
+     */
+    public void addView(View view)
+    {
+        views.add(view);
+    }
+
+    /**
+     * @return true if there are no views, so frames need not be taken.
+     */
+    public boolean isEmpty()
+    {
+        return views.isEmpty();
+    }
+
+    /**
+     * Reset the views before the next frame is shown.
+     */
+    public void reset()
+    {
+        resetPending.set(true);
+    }
+
+    /**
+     * Publish a frame, to be shown on the event dispatch thread. Does not
+     * wait for the frame to be shown.
+     * @param frame The newest frame of the simulation.
+     */
+    public void publish(FrameSnapshot frame)
+    {
+        FrameSnapshot waiting;
+        FrameSnapshot next;
+        do {
+            waiting = latest.get();
+            next = waiting == null ? frame : frame.withChangesOf(waiting);
+        } while(!latest.compareAndSet(waiting, next));
+
+        if(waiting == null) {
+            SwingUtilities.invokeLater(this::showLatest);
+        }
+        else {
+            dropped++;
+        }
+    }
+
+    /**
+     * Return the number of frames that were replaced by a newer one
+     * before they could be shown.
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames()
+    {
+        return dropped;
+    }
+
+    /**
+     * Show the waiting frame in every view. Runs on the event dispatch thread.
+     */
+    private void showLatest()
+    {
+        FrameSnapshot frame = latest.getAndSet(null);
+        if(resetPending.getAndSet(false)) {
+            for(View view : views) {
+                view.reset();
+            }
+        }
+        if(frame != null) {
+            for(View view : views) {
+                view.showStatus(frame);
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The state of the field at the end of one step, as shown by the views.
+ * A snapshot is taken once per step, however many views there are, and
+ * holds everything they display: the species in every cell, the number
+ * of individuals of every species, the weather and the time of day.
+ * It also records which cells have changed since the previous snapshot,
+ * so that a view which has drawn that snapshot need only redraw those.
+ * Taking one costs a copy of the cells plus a little per species; the
+ * views read the snapshot and never look at the field themselves.
+ *
+ * A snapshot does not change after it has been taken.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class FrameSnapshot
+{
+    // The step the snapshot was taken at.
+    private final int step;
+    // The depth and width of the field.
+    private final int depth, width;
+    // The species code of every cell, in row-major order.
+    private final byte[] cells;
+    // The cells that have changed since the previous snapshot.
+    private final BitSet changed;
+    // The number of individuals of each species, by species id.
+    private final int[] counts;
+    // Whether each species id has a kind in the field.
+    private final boolean[] present;
+    // The description of the weather.
+    private final String weather;
+    // The description of the time of day.
+    private final String time;
+
+    /**
+     * Take a snapshot of the given field. The field's record of the
+     * changed cells is emptied, so only one snapshot should be taken
+     * per step.
+     * @param step The current step of the simulation.
+     * @param field The field to take the snapshot of.
+     */
+    public FrameSnapshot(int step, Field field)
+    {
+        this.step = step;
+        depth = field.getDepth();
+        width = field.getWidth();
+        cells = new byte[depth * width];
+        field.copyCells(cells);
+        long[] changedCells = new long[(cells.length + 63) / 64];
+        field.takeChangedCells(changedCells);
+        changed = BitSet.valueOf(changedCells);
+        counts = new int[SpeciesRegistry.size() + 1];
+        present = new boolean[counts.length];
+        for(int species = 1; species < counts.length; species++) {
+            Entity kind = field.getKind((byte) species);
+            if(kind != null) {
+                counts[species] = kind.getCount();
+                present[species] = true;
+            }
+        }
+        weather = field.getWeatherCondition();
+        time = field.getTimeString();
+    }
+
+    /**
+     * Create a snapshot from a stored state, such as one kept by a
+     * FrameHistory. Every cell counts as changed, and every species
+     * with a count as present.
+     * @param step The step of the state.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param cells The species code of every cell, in row-major order.
+     *              The snapshot keeps the array, which must not change.
+     * @param counts The number of individuals of each species, by id.
+     *               The snapshot keeps the array, which must not change.
+     * @param weather The description of the weather.
+     * @param time The description of the time of day.
+     */
+    public FrameSnapshot(int step, int depth, int width, byte[] cells, int[] counts,
+                         String weather, String time)
+    {
+        this.step = step;
+        this.depth = depth;
+        this.width = width;
+        this.cells = cells;
+        changed = new BitSet(cells.length);
+        changed.set(0, cells.length);
+        this.counts = counts;
+        present = new boolean[counts.length];
+        Arrays.fill(present, 1, counts.length, true);
+        this.weather = weather;
+        this.time = time;
+    }
+
+    /**
+     * Create a copy of a snapshot with a different set of changed cells.
+     * @param frame The snapshot to copy.
+     * @param changed The cells changed since the previous snapshot.
+     */
+    private FrameSnapshot(FrameSnapshot frame, BitSet changed)
+    {
+        step = frame.step;
+        depth = frame.depth;
+        width = frame.width;
+        cells = frame.cells;
+        this.changed = changed;
+        counts = frame.counts;
+        present = frame.present;
+        weather = frame.weather;
+        time = frame.time;
+    }
+
+    /**
+     * Return this snapshot as if the given, older one had never been
+     * taken: the cells changed in either of them count as changed.
+     * Used when the older snapshot is dropped without being shown.
+     * @param older The snapshot taken before this one.
+     * @return A snapshot with the changes of both.
+     */
+    public FrameSnapshot withChangesOf(FrameSnapshot older)
+    {
+        BitSet merged = (BitSet) changed.clone();
+        merged.or(older.changed);
+        return new FrameSnapshot(this, merged);
+    }
+
+    /**
+     * @return The step the snapshot was taken at.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The depth of the field.
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return The width of the field.
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+    /**
+     * Return the species code of a cell.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The code of the species in the cell, or Field.EMPTY.
+     */
+    public byte getSpeciesAt(int row, int col)
+    {
+        return cells[row * width + col];
+    }
+
+    /**
+     * Return the species code of a cell.
+     * @param index The row-major index of the cell.
+     * @return The code of the species in the cell, or Field.EMPTY.
+     */
+    public byte getSpeciesAt(int index)
+    {
+        return cells[index];
+    }
+
+    /**
+     * Return the first cell at or after the given one that has changed
+     * since the previous snapshot.
+     * @param from The row-major index to start from.
+     * @return The index of the changed cell, or -1 if there is none.
+     */
+    public int nextChangedCell(int from)
+    {
+        return changed.nextSetBit(from);
+    }
+
+    /**
+     * Return the number of individuals of a species.
+     * @param species The id of the species.
+     * @return The number of individuals.
+     */
+    public int getCount(int species)
+    {
+        return species < counts.length ? counts[species] : 0;
+    }
+
+    /**
+     * Get details of what is in the field, in the same form as
+     * FieldStats.getPopulationDetails.
+     * @return A string describing what is in the field.
+     */
+    public String getPopulationDetails()
+    {
+        StringBuilder buffer = new StringBuilder();
+        for(int species = 1; species < counts.length; species++) {
+            if(present[species]) {
+                buffer.append(SpeciesRegistry.getName(species));
+                buffer.append(": ");
+                buffer.append(counts[species]);
+                buffer.append(' ');
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Determine whether the simulation was still viable.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        int nonZero = 0;
+        for(int count : counts) {
+            if(count > 0) {
+                nonZero++;
+            }
+        }
+        return nonZero > 1;
+    }
+
+    /**
+     * @return The description of the weather.
+     */
+    public String getWeatherCondition()
+    {
+        return weather;
+    }
+
+    /**
+     * @return The description of the time of day.
+     */
+    public String getTimeString()
+    {
+        return time;
+    }
+}
@@ -4,8 +4,8 @@ import javax.swing.*;
 import java.util.*;
 
 /**
- * The GraphView provides a view of eight populations of entities in the field as a line graph
- * over time. In the current version, only eight species can be displayed.
+ * The GraphView provides a view of the populations of entities in the field as a line graph
+ * over time. Any number of species can be displayed; each one whose color is set is shown.
  * 
  * @author Michael Kölling and David J. Barnes and Reibjok Othow and Kwan Yui Chiu
  * @version 28/02/2022
@@ -19,12 +19,13 @@ public class GraphView implements View
     private static JLabel stepLabel;
     private static JLabel countLabel;
 
-    // The classes being tracked by this view
-    private Set<Class<?>> classes;
-    // A map for storing colors for participants in the simulation
-    private Map<Class<?>, Color> colors;
-    // A statistics object computing and storing simulation information
-    private FieldStats stats;
+    // The ids of the species being tracked by this view, in the order
+    // in which their colors were set.
+    private int[] tracked;
+    // The number of species being tracked.
+    private int trackedCount;
+    // The colors of the participants in the simulation, by species id.
+    private Color[] colors;
 
     /**
      * Constructor.
@@ -35,9 +36,9 @@ public class GraphView implements View
      */
     public GraphView(int width, int height, int startMax)
     {
-        stats = new FieldStats();
-        classes = new HashSet<>();
-        colors = new HashMap<>();
+        tracked = new int[SpeciesRegistry.MAX_SPECIES];
+        trackedCount = 0;
+        colors = new Color[SpeciesRegistry.MAX_SPECIES + 1];
 
         if (frame == null) {
             frame = makeFrame(width, height, startMax);
@@ -56,29 +57,23 @@ public class GraphView implements View
      */
     public void setColor(Class<?> animalClass, Color color)
     {
-        colors.put(animalClass, color);
-        classes = colors.keySet();
+        int species = SpeciesRegistry.idOf(animalClass.asSubclass(Entity.class));
+        if(colors[species] == null) {
+            tracked[trackedCount] = species;
+            trackedCount++;
+        }
+        colors[species] = color;
     }
 
     /**
-     * Show the current status of the field. The status is shown by displaying a line graph for the
-     * eight classes in the field.
+     * Show the current status of the field. The status is shown by displaying a line graph for
+     * each species whose color has been set.
      * 
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
-     */
-    public void showStatus(int step, Field field)
-    {
-        graph.update(step, field, stats);
-    }
-
-    /**
-     * Determine whether the simulation should continue to run.
-     * @return true If there is more than one species alive.
+     * @param frame The state of the field to be displayed.
      */
-    public boolean isViable(Field field)
+    public void showStatus(FrameSnapshot frame)
     {
-        return stats.isViable(field);
+        graph.update(frame);
     }
 
     /**
@@ -86,7 +81,6 @@ public class GraphView implements View
      */
     public void reset()
     {
-        stats.reset();
         graph.newRun();
     }
     
@@ -109,6 +103,9 @@ public class GraphView implements View
         bottom.add(stepLabel);
         countLabel = new JLabel(" ");
         bottom.add(countLabel);
+        JCheckBox wholeRun = new JCheckBox("Whole run");
+        wholeRun.addActionListener(e -> graph.setWholeRun(wholeRun.isSelected()));
+        bottom.add(wholeRun);
         contentPane.add(bottom, BorderLayout.SOUTH);
 
         frame.pack();
@@ -126,11 +123,31 @@ public class GraphView implements View
     class GraphPanel extends JComponent
     {
         private static final double SCALE_FACTOR = 0.8;
+        // The number of points kept, so that a whole run can be shown.
+        private static final int HISTORY_LENGTH = 100000;
 
         // An internal image buffer that is used for painting. For
         // actual display, this image buffer is then copied to screen.
+        // Points are drawn one column each, from left to right and
+        // wrapping round, so the image never has to be moved.
         private BufferedImage graphImage;
-        private int lastVal1, lastVal2, lastVal3, lastVal4, lastVal5, lastVal6, lastVal7, lastVal8;
+        // Draws on the image; kept so that drawing does not allocate.
+        private Graphics graphics;
+        // The counts of the run, one point per update.
+        private CountHistory history;
+        // The counts of the newest point, by series.
+        private int[] counts;
+        // The number of points of the history in each column when the
+        // whole run is shown, or 0 if the columns have not been chosen.
+        private int bucketWidth;
+        // The point chosen to be drawn in each column when the whole run
+        // is shown, by series.
+        private int[][] picks;
+        // The column the next point is drawn in; the oldest point shown
+        // is in the column after it.
+        private int column;
+        // Whether the whole run is shown, rather than the newest points.
+        private boolean wholeRun;
         private int yMax;
 
         /**
@@ -139,15 +156,14 @@ public class GraphView implements View
         public GraphPanel(int width, int height, int startMax)
         {
             graphImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            graphics = graphImage.getGraphics();
             clearImage();
-            lastVal1 = height;
-            lastVal2 = height;
-            lastVal3 = height;
-            lastVal4 = height;
-            lastVal5 = height;
-            lastVal6 = height;
-            lastVal7 = height;
-            lastVal8 = height;
+            history = new CountHistory(HISTORY_LENGTH);
+            counts = new int[0];
+            bucketWidth = 0;
+            picks = new int[0][];
+            column = 0;
+            wholeRun = false;
             yMax = startMax;
         }
 
@@ -156,189 +172,252 @@ public class GraphView implements View
          */
         public void newRun()
         {
-            int height = graphImage.getHeight();
-            int width = graphImage.getWidth();
-            
+            history.clear();
+            column = 0;
+            bucketWidth = 0;
             clearImage();
-            Graphics g = graphImage.getGraphics();
-            g.copyArea(4, 0, width-4, height, -4, 0);            
-            g.setColor(Color.BLACK);
-            g.drawLine(width-4, 0, width-4, height);
-            g.drawLine(width-2, 0, width-2, height);
-            lastVal1 = height;
-            lastVal2 = height;
-            lastVal3 = height;
-            lastVal4 = height;
-            lastVal5 = height;
-            lastVal6 = height;
-            lastVal7 = height;
-            lastVal8 = height;
-            repaint();
         }
 
         /**
-         * Dispay a new point of data.
+         * Choose whether to show the whole run, squeezed into the width of
+         * the graph, or one point per column for the newest points.
+         * @param wholeRun Whether to show the whole run.
          */
-        public void update(int step, Field field, FieldStats stats)
+        public void setWholeRun(boolean wholeRun)
         {
-            if (classes.size() >= 2) {
-                Iterator<Class<?>> it = classes.iterator();
-                Class<?> class1 = it.next();
-                Class<?> class2 = it.next();
-                Class<?> class3 = it.next();
-                Class<?> class4 = it.next();
-                Class<?> class5 = it.next();
-                Class<?> class6 = it.next();
-                Class<?> class7 = it.next();
-                Class<?> class8 = it.next();
-
-                stats.reset();
-                int count1 = stats.getPopulationCount(field, class1);
-                int count2 = stats.getPopulationCount(field, class2);
-                int count3 = stats.getPopulationCount(field, class3);
-                int count4 = stats.getPopulationCount(field, class4);
-                int count5 = stats.getPopulationCount(field, class5);
-                int count6 = stats.getPopulationCount(field, class6);
-                int count7 = stats.getPopulationCount(field, class7);
-                int count8 = stats.getPopulationCount(field, class8);
-
-                Graphics g = graphImage.getGraphics();
-
-                int height = graphImage.getHeight();
-                int width = graphImage.getWidth();
-
-                // move graph one pixel to left
-                g.copyArea(1, 0, width-1, height, -1, 0);
+            this.wholeRun = wholeRun;
+            replot();
+        }
 
-                // calculate y, check whether it's out of screen. scale down if necessary.
-                int y = height - ((height * count1) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count1) / yMax) - 1;
+        /**
+         * Dispay a new point of data.
+         */
+        public void update(FrameSnapshot frame)
+        {
+            if (trackedCount >= 1) {
+                history.setSeriesCount(trackedCount);
+                if(counts.length < trackedCount) {
+                    counts = new int[trackedCount];
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class1));
-                g.drawLine(width-3, lastVal1, width-2, y);
-                lastVal1 = y;
-
-                y = height - ((height * count2) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count2) / yMax) - 1;
+                int largest = 0;
+                for(int i = 0; i < trackedCount; i++) {
+                    counts[i] = frame.getCount(tracked[i]);
+                    largest = Math.max(largest, counts[i]);
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class2));
-                g.drawLine(width-3, lastVal2, width-2, y);
-                lastVal2 = y;
-                
-                y = height - ((height * count3) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count3) / yMax) - 1;
+                history.add(counts);
+                column = (column + 1) % graphImage.getWidth();
+
+                // check whether the point is out of screen. scale up yMax
+                // and draw the graph again from the history if necessary.
+                boolean rescaled = false;
+                while (yOf(largest) < 0) {
+                    yMax = (int) (yMax / SCALE_FACTOR);
+                    rescaled = true;
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class3));
-                g.drawLine(width-3, lastVal3, width-2, y);
-                lastVal3 = y;
-                
-                y = height - ((height * count4) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count4) / yMax) - 1;
+                if(rescaled) {
+                    replot();
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class4));
-                g.drawLine(width-3, lastVal4, width-2, y);
-                lastVal4 = y;
-                
-                y = height - ((height * count5) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count5) / yMax) - 1;
+                else if(wholeRun) {
+                    plotNewestBuckets();
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class5));
-                g.drawLine(width-3, lastVal5, width-2, y);
-                lastVal5 = y;
-                
-                y = height - ((height * count6) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count6) / yMax) - 1;
-                }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class6));
-                g.drawLine(width-3, lastVal6, width-2, y);
-                lastVal6 = y;
-                
-                y = height - ((height * count7) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count7) / yMax) - 1;
+                else {
+                    int x = (column + graphImage.getWidth() - 1) % graphImage.getWidth();
+                    drawPoint(history.size() - 1, x);
                 }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class7));
-                g.drawLine(width-3, lastVal7, width-2, y);
-                lastVal7 = y;
-                
-                y = height - ((height * count8) / yMax) - 1;
-                while (y<0) {
-                    scaleDown();
-                    y = height - ((height * count8) / yMax) - 1;
-                }
-                g.setColor(LIGHT_GRAY);
-                g.drawLine(width-2, y, width-2, height);
-                g.setColor(colors.get(class8));
-                g.drawLine(width-3, lastVal8, width-2, y);
-                lastVal8 = y;
-
                 repaint();
 
-                stepLabel.setText("" + step);
-                countLabel.setText(stats.getPopulationDetails(field));
+                stepLabel.setText("" + frame.getStep());
+                countLabel.setText(frame.getPopulationDetails());
             }
         }
 
         /**
-         * Scale the current graph down vertically to make more room at the top.
+         * Draw the graph again from the history.
          */
-        public void scaleDown()
+        private void replot()
         {
-            Graphics g = graphImage.getGraphics();
-            int height = graphImage.getHeight();
+            clearImage();
             int width = graphImage.getWidth();
+            if(wholeRun) {
+                plotWholeRun();
+            }
+            else {
+                int shown = Math.min(history.size(), width);
+                for(int k = 0; k < shown; k++) {
+                    int point = history.size() - shown + k;
+                    drawPoint(point, (column - shown + k + width) % width);
+                }
+            }
+        }
 
-            BufferedImage tmpImage = new BufferedImage(width, (int)(height*SCALE_FACTOR), 
-                                                       BufferedImage.TYPE_INT_RGB);
-            Graphics2D gtmp = (Graphics2D) tmpImage.getGraphics();
+        /**
+         * Draw a point of the history in a column of the image, joined
+         * to the point before it.
+         * @param point The point of the history.
+         * @param x The column to draw it in.
+         */
+        private void drawPoint(int point, int x)
+        {
+            Graphics g = graphics;
+            int height = graphImage.getHeight();
+            g.setColor(Color.WHITE);
+            g.drawLine(x, 0, x, height);
+            for(int i = 0; i < history.getSeriesCount(); i++) {
+                int y = yOf(history.get(point, i));
+                int last = point > 0 ? yOf(history.get(point - 1, i)) : y;
+                g.setColor(LIGHT_GRAY);
+                g.drawLine(x, y, x, height);
+                g.setColor(colors[tracked[i]]);
+                g.drawLine(x, last, x, y);
+            }
+        }
 
-            gtmp.scale(1.0, SCALE_FACTOR);
-            gtmp.drawImage(graphImage, 0, 0, null);
+        /**
+         * Draw every point of the history, squeezed into the width of the
+         * image. The points are cut into buckets of equal width, one per
+         * column, and each series is cut down to one point per bucket by
+         * largest-triangle-three-buckets, which keeps the peaks and
+         * troughs that plain sampling would miss.
+         */
+        private void plotWholeRun()
+        {
+            int points = history.size();
+            if(points == 0) {
+                return;
+            }
+            bucketWidth = bucketWidthFor(points);
+            int last = (points - 1) / bucketWidth;
+            if(picks.length != history.getSeriesCount()) {
+                picks = new int[history.getSeriesCount()][graphImage.getWidth()];
+            }
+            for(int i = 0; i < picks.length; i++) {
+                for(int bucket = 0; bucket <= last; bucket++) {
+                    picks[i][bucket] = choose(i, bucket);
+                }
+            }
+            drawBuckets(0, last);
+        }
+
+        /**
+         * Add the newest point to the whole run shown. Only the point of
+         * a bucket depends on the buckets either side of it, so while the
+         * width of the buckets stays the same only the last few are chosen
+         * and drawn again; the whole run is downsampled again when the
+         * buckets have to get wider.
+         */
+        private void plotNewestBuckets()
+        {
+            int points = history.size();
+            if(bucketWidthFor(points) != bucketWidth || picks.length != history.getSeriesCount()) {
+                replot();
+                return;
+            }
+            // The bucket before the last may only just have been filled,
+            // which settles the point of the one before it.
+            int last = (points - 1) / bucketWidth;
+            int first = Math.max(1, last - 2);
+            for(int i = 0; i < picks.length; i++) {
+                for(int bucket = first; bucket <= last; bucket++) {
+                    picks[i][bucket] = choose(i, bucket);
+                }
+            }
+            drawBuckets(first, last);
+        }
 
-            int oldTop = (int) (height * (1.0-SCALE_FACTOR));
+        /**
+         * Return the width of the buckets that fit a number of points into
+         * the width of the image.
+         * @param points The number of points.
+         * @return The number of points in each bucket.
+         */
+        private int bucketWidthFor(int points)
+        {
+            int width = graphImage.getWidth();
+            return Math.max(1, (points + width - 1) / width);
+        }
 
+        /**
+         * Draw the points chosen from a range of buckets, each in its own
+         * column and joined to the point of the bucket before it, like
+         * drawPoint, so that a column can be drawn again on its own.
+         * @param from The first bucket to draw.
+         * @param to The last bucket to draw.
+         */
+        private void drawBuckets(int from, int to)
+        {
+            Graphics g = graphics;
+            int height = graphImage.getHeight();
             g.setColor(Color.WHITE);
-            g.fillRect(0, 0, width, oldTop);
-            g.drawImage(tmpImage, 0, oldTop, null);
-
-            yMax = (int) (yMax / SCALE_FACTOR);
-            lastVal1 = oldTop + (int) (lastVal1 * SCALE_FACTOR);
-            lastVal2 = oldTop + (int) (lastVal2 * SCALE_FACTOR);
-            lastVal3 = oldTop + (int) (lastVal3 * SCALE_FACTOR);
-            lastVal4 = oldTop + (int) (lastVal4 * SCALE_FACTOR);
-            lastVal5 = oldTop + (int) (lastVal5 * SCALE_FACTOR);
-            lastVal6 = oldTop + (int) (lastVal6 * SCALE_FACTOR);
-            lastVal7 = oldTop + (int) (lastVal7 * SCALE_FACTOR);
-            lastVal8 = oldTop + (int) (lastVal8 * SCALE_FACTOR);
+            g.fillRect(from, 0, to - from + 1, height);
+            for(int i = 0; i < picks.length; i++) {
+                for(int x = from; x <= to; x++) {
+                    int y = yOf(history.get(picks[i][x], i));
+                    g.setColor(LIGHT_GRAY);
+                    g.drawLine(x, y, x, height);
+                    int last = x > 0 ? yOf(history.get(picks[i][x - 1], i)) : y;
+                    g.setColor(colors[tracked[i]]);
+                    g.drawLine(x, last, x, y);
+                }
+            }
+        }
 
-            repaint();
+        /**
+         * Choose the point of a series to draw from a bucket, using
+         * largest-triangle-three-buckets: the point chosen is the one that
+         * makes the largest triangle with the point chosen from the bucket
+         * before and the average of the bucket after. The first and last
+         * points are always chosen. The points of the buckets before must
+         * already have been chosen.
+         * @param index The series.
+         * @param bucket The bucket.
+         * @return The point chosen.
+         */
+        private int choose(int index, int bucket)
+        {
+            int points = history.size();
+            int start = bucket * bucketWidth;
+            int end = Math.min(start + bucketWidth, points);
+            if(bucket == 0) {
+                return 0;
+            }
+            if(end == points) {
+                return points - 1;
+            }
+            // The average of the next bucket, as far as it has been filled.
+            int nextEnd = Math.min(end + bucketWidth, points);
+            double averageX = 0;
+            double averageY = 0;
+            for(int point = end; point < nextEnd; point++) {
+                averageX += point;
+                averageY += history.get(point, index);
+            }
+            averageX /= nextEnd - end;
+            averageY /= nextEnd - end;
+
+            int previous = picks[index][bucket - 1];
+            double previousY = history.get(previous, index);
+            double largestArea = -1;
+            int best = start;
+            for(int point = start; point < end; point++) {
+                double area = Math.abs((previous - averageX) * (history.get(point, index) - previousY)
+                                       - (previous - point) * (averageY - previousY));
+                if(area > largestArea) {
+                    largestArea = area;
+                    best = point;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Return the row of the image that shows a count.
+         * @param count The count.
+         * @return The row, which is negative if the count is above yMax.
+         */
+        private int yOf(int count)
+        {
+            int height = graphImage.getHeight();
+            return height - (int) (((long) height * count) / yMax) - 1;
         }
 
         /**
@@ -346,7 +425,7 @@ public class GraphView implements View
          */
         final public void clearImage()
         {
-            Graphics g = graphImage.getGraphics();
+            Graphics g = graphics;
             g.setColor(Color.WHITE);
             g.fillRect(0, 0, graphImage.getWidth(), graphImage.getHeight());
             repaint();
@@ -385,7 +464,14 @@ public class GraphView implements View
         public void paintComponent(Graphics g)
         {
             if(graphImage != null) {
-                g.drawImage(graphImage, 0, 0, null);
+                // The oldest column shown goes on the left.
+                int width = graphImage.getWidth();
+                int height = graphImage.getHeight();
+                int split = wholeRun ? 0 : column;
+                g.drawImage(graphImage, 0, 0, width - split, height,
+                            split, 0, width, height, null);
+                g.drawImage(graphImage, width - split, 0, width, height,
+                            0, 0, split, height, null);
             }
         }
     }
@@ -0,0 +1,23 @@
+/**
+ * A test that is applied, one cell at a time, to the cells around a
+ * location in the field. It is used by Field.findAdjacent to search the
+ * neighbourhood of an entity without building a list of locations.
+ *
+ * The context is passed to every call so that implementations do not
+ * need to capture any state, which lets a single shared instance (for
+ * example a static method reference) serve every search.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public interface NeighbourVisitor<T>
+{
+    /**
+     * Visit one cell of the neighbourhood. What is in the cell can be
+     * looked up with Field.getSpeciesAt(index) and Field.getObjectAt(index).
+     * @param context The context object passed to the search.
+     * @param index The row-major index of the cell in the field.
+     * @return true to stop the search at this cell.
+     */
+    boolean visit(T context, int index);
+}
@@ -1,28 +1,134 @@
-import java.util.List;
+import java.util.Random;
 
 /**
- * Abstract class Plant 
+ * Abstract class Plant
  * This is a class that represents a plant in the simulation
  * Plants can grow at a specific rate and they do not move
+ * The plants themselves are kept in the field's PlantLayer, which
+ * ages and seeds all of them at once; the slot of a plant is the
+ * index of its cell.
  *
  * @author Reibjok Othow and Kwan Yui Chui
  * @version 27/02/2022
  */
 public abstract class Plant extends Entity
 {
-    public Plant(Field field, Location location){
-        super(field, location);
+    /**
+     * Create a plant species of a simulation.
+     * @param field The field the plants grow in.
+     * @param store The store of the simulation.
+     * @param maxAge The age to which a plant can live.
+     * @param growthProbability The likelihood of a plant seeding in a step.
+     * @param rainBonus How much more likely seeding is when it rains.
+     */
+    public Plant(Field field, EntityStore store, int maxAge, double growthProbability,
+                 double rainBonus){
+        super(field, store);
+        field.getPlants().register(this, maxAge, growthProbability, rainBonus);
+    }
+
+    /**
+     * Create a new plant at the given location.
+     * @param location The location within the field.
+     * @return The slot of the new plant.
+     */
+    public int create(Location location)
+    {
+        return spawn(location, false, 0, 0);
     }
-    
+
+    /**
+     * Plants do not act one by one: the field's PlantLayer ages and seeds
+     * all the plants of a tile at once (see PlantLayer.update).
+     * @param slot The slot of the plant.
+     * @param rand The random generator to use.
+     * @throws UnsupportedOperationException Always.
+     */
+    public void act(int slot, Random rand)
+    {
+        throw new UnsupportedOperationException("Plants are updated by the PlantLayer");
+    }
+
     /**
      * This method set the plant dead when it is eaten
+     * @param slot The slot of the plant.
      */
-    protected void eaten(){
-        super.setDead();
+    protected void eaten(int slot){
+        setDead(slot);
     }
-    
+
+    /**
+     * Put a plant in the plant layer. Plants are neither male nor female
+     * and need no food.
+     * @param location Where the plant is placed.
+     * @param female Ignored.
+     * @param age The age of the plant.
+     * @param foodLevel Ignored.
+     * @return The slot of the new plant.
+     */
+    protected int spawn(Location location, boolean female, int age, int foodLevel)
+    {
+        return getField().getPlants().plant(this, getField().getIndex(location), age);
+    }
+
     /**
-     * This is an abstract method that is called when the plant should grow and reproduce
+     * @return The location of the plant in the slot.
      */
-    protected abstract void grow(List<Entity> newPlants);
+    protected Location getLocation(int slot)
+    {
+        return getField().getLocation(slot);
+    }
+
+    /**
+     * @return Whether the cell of the slot still holds a plant of this species.
+     */
+    protected boolean isAlive(int slot)
+    {
+        return getField().getSpeciesAt(slot) == getSpeciesCode();
+    }
+
+    /**
+     * Remove the plant in the slot from the field.
+     * @param slot The slot of the plant.
+     */
+    protected void setDead(int slot)
+    {
+        if(isAlive(slot)) {
+            getField().getPlants().remove(slot);
+        }
+    }
+
+    /**
+     * @return false: plants are neither male nor female.
+     */
+    protected boolean isFemale(int slot)
+    {
+        return false;
+    }
+
+    /**
+     * @return The age of the plant in the slot.
+     */
+    protected int getAge(int slot)
+    {
+        return getField().getPlants().getAge(slot);
+    }
+
+    /**
+     * @return 0: plants need no food.
+     */
+    protected int getFoodLevel(int slot)
+    {
+        return 0;
+    }
+
+    /**
+     * Return the number of plants of this species, as kept by the
+     * plant layer.
+     * @return The number of plants.
+     */
+    public int getCount()
+    {
+        return getField().getPlants().getCount(getSpeciesCode());
+    }
 }
@@ -0,0 +1,207 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Holds the plants of a field. Plants are far more numerous than animals
+ * and far simpler: they only age, seed and die. So instead of giving every
+ * plant a slot in the columns of its species and an act call of its own,
+ * the layer keeps the age of the plant in each cell in a grid of one byte
+ * per cell, and updates all the plants of a part of the field in one
+ * loop. A plant still takes up its cell, which holds the species code of
+ * its kind like any other, so animals see and eat plants as before; the
+ * "slot" of a plant is simply the index of its cell.
+ *
+ * Each step a plant grows a step older and dies once older than the
+ * largest age of its species. Otherwise, with the growth probability of
+ * its species, raised when it rains, it seeds one of the free cells
+ * around it, chosen at random. Plants seeded in a step are not updated
+ * again in that step.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class PlantLayer
+{
+    // The field the plants grow in.
+    private final Field field;
+    // The age of the plant in each cell, in row-major order; meaningless
+    // in cells that do not hold a plant.
+    private final byte[] ages;
+    // The plant species of each species code, or null if it is not a plant.
+    private final Plant[] kinds;
+    // The age to which each plant species can live, by species code.
+    private final int[] maxAges;
+    // The likelihood of each plant species seeding in a step, by species code.
+    private final double[] growthProbabilities;
+    // How much more likely seeding is when it rains, by species code.
+    private final double[] rainBonuses;
+    // The number of plants of each species, by species code; kept as
+    // plants are seeded and die, which tiles do in parallel.
+    private final AtomicIntegerArray counts;
+
+    /**
+     * Create an empty layer.
+     * @param field The field the plants grow in.
+     */
+    public PlantLayer(Field field)
+    {
+        this.field = field;
+        ages = new byte[field.getDepth() * field.getWidth()];
+        kinds = new Plant[Byte.MAX_VALUE + 1];
+        maxAges = new int[Byte.MAX_VALUE + 1];
+        growthProbabilities = new double[Byte.MAX_VALUE + 1];
+        rainBonuses = new double[Byte.MAX_VALUE + 1];
+        counts = new AtomicIntegerArray(Byte.MAX_VALUE + 1);
+    }
+
+    /**
+     * Add a plant species to the layer.
+     * @param kind The plant species.
+     * @param maxAge The age to which its plants can live; less than Byte.MAX_VALUE.
+     * @param growthProbability The likelihood of a plant seeding in a step.
+     * @param rainBonus How much more likely seeding is when it rains.
+     */
+    public void register(Plant kind, int maxAge, double growthProbability, double rainBonus)
+    {
+        if(maxAge < 0 || maxAge >= Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("The age of a plant must fit in a byte: " + maxAge);
+        }
+        byte code = kind.getSpeciesCode();
+        kinds[code] = kind;
+        maxAges[code] = maxAge;
+        growthProbabilities[code] = growthProbability;
+        rainBonuses[code] = rainBonus;
+    }
+
+    /**
+     * Check whether a species is a plant.
+     * @param code The species code.
+     * @return true if the species is a plant species of this layer.
+     */
+    public boolean isPlant(byte code)
+    {
+        return kinds[code] != null;
+    }
+
+    /**
+     * Put a plant in a cell, replacing whatever was there.
+     * @param kind The plant species.
+     * @param index The index of the cell.
+     * @param age The age of the plant.
+     * @return The slot of the plant: the index of its cell.
+     */
+    public int plant(Plant kind, int index, int age)
+    {
+        byte old = field.getSpeciesAt(index);
+        byte code = kind.getSpeciesCode();
+        ages[index] = (byte) age;
+        int width = field.getWidth();
+        field.place(kind, index, index / width, index % width);
+        if(old != code) {
+            if(isPlant(old)) {
+                counts.decrementAndGet(old);
+            }
+            counts.incrementAndGet(code);
+        }
+        return index;
+    }
+
+    /**
+     * Remove the plant in a cell from the field.
+     * @param index The index of the cell, which holds a plant.
+     */
+    public void remove(int index)
+    {
+        counts.decrementAndGet(field.getSpeciesAt(index));
+        int width = field.getWidth();
+        field.clear(index / width, index % width);
+    }
+
+    /**
+     * Return the number of plants of a species.
+     * @param code The species code of the plant species.
+     * @return The number of plants of the species in the field.
+     */
+    public int getCount(byte code)
+    {
+        return counts.get(code);
+    }
+
+    /**
+     * Forget all the plants, as the field is emptied.
+     */
+    public void clear()
+    {
+        for(int code = 0; code < counts.length(); code++) {
+            counts.set(code, 0);
+        }
+    }
+
+    /**
+     * Return the age of the plant in a cell.
+     * @param index The index of the cell, which holds a plant.
+     * @return The age of the plant.
+     */
+    public int getAge(int index)
+    {
+        return ages[index];
+    }
+
+    /**
+     * Update the plants in a rectangle of the field.
+     * @param firstRow The first row of the rectangle.
+     * @param lastRow The row after the last row of the rectangle.
+     * @param firstCol The first column of the rectangle.
+     * @param lastCol The column after the last column of the rectangle.
+     * @param rand The random generator to use.
+     * @param free Room for the indexes of the 8 cells around a plant,
+     *             so that each caller can keep one buffer for all its updates.
+     * @return The number of plants updated.
+     */
+    public int update(int firstRow, int lastRow, int firstCol, int lastCol, Random rand,
+                      int[] free)
+    {
+        int depth = field.getDepth();
+        int width = field.getWidth();
+        boolean raining = field.getWeatherCode() == Weather.RAINING;
+        int updated = 0;
+        for(int row = firstRow; row < lastRow; row++) {
+            for(int col = firstCol; col < lastCol; col++) {
+                int index = row * width + col;
+                byte code = field.getSpeciesAt(index);
+                Plant kind = kinds[code];
+                if(kind == null || field.isPlacedThisStep(index)) {
+                    continue;
+                }
+                updated++;
+                int age = ages[index] + 1;
+                if(age > maxAges[code]) {
+                    remove(index);
+                    continue;
+                }
+                ages[index] = (byte) age;
+
+                double growthProbability = growthProbabilities[code];
+                if(raining) {
+                    growthProbability += rainBonuses[code];
+                }
+                if(rand.nextDouble() <= growthProbability) {
+                    // Seed one of the free cells around, if there is one.
+                    int count = 0;
+                    for(int r = Math.max(0, row - 1); r <= Math.min(depth - 1, row + 1); r++) {
+                        for(int c = Math.max(0, col - 1); c <= Math.min(width - 1, col + 1); c++) {
+                            int next = r * width + c;
+                            if(field.getSpeciesAt(next) == Field.EMPTY) {
+                                free[count++] = next;
+                            }
+                        }
+                    }
+                    if(count > 0) {
+                        plant(kind, free[rand.nextInt(count)], 0);
+                    }
+                }
+            }
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the state of a simulation after every step - the number of
+ * individuals of each species, the weather and whether it is day - in
+ * a file, for analysis after the run. Read the file with
+ * PopulationRecording.
+ *
+ * The file starts with a header of HEADER_SIZE bytes, giving the layout
+ * of the records and the names of the species. The records follow in
+ * blocks of a fixed number of records. Within a block each value has a
+ * column of its own: first the steps, then the weather codes, then the
+ * day flags and then the counts of each species in turn. Every record
+ * has the same size, so any record can be found without reading those
+ * before it, and a column can be scanned without touching the others.
+ *
+ * The file is memory-mapped one block at a time and grows by a block
+ * when the current one is full, so recording a step costs a few stores
+ * into memory. The number of records in the header is updated with
+ * every record, so the file can be read while it is still being written.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class PopulationRecorder
+{
+    // Identifies a recording: "PPRC".
+    public static final int MAGIC = 0x50505243;
+    // The version of the file layout.
+    public static final int VERSION = 1;
+    // The size of the header, in bytes.
+    public static final int HEADER_SIZE = 4096;
+    // The position in the header of the number of records.
+    public static final int RECORD_COUNT_POSITION = 16;
+    // The position in the header of the names of the species.
+    public static final int NAMES_POSITION = 24;
+    // The default number of records in a block.
+    private static final int DEFAULT_BLOCK_RECORDS = 1 << 14;
+
+    // The field whose state is recorded.
+    private final Field field;
+    // The file being written.
+    private final FileChannel channel;
+    // The header of the file.
+    private final MappedByteBuffer header;
+    // The number of species recorded; their ids run from 1.
+    private final int speciesCount;
+    // The number of records in a block.
+    private final int blockRecords;
+    // The block being filled.
+    private MappedByteBuffer block;
+    // The number of records written.
+    private long recordCount;
+
+    /**
+     * Create a recorder writing to a new file, or replacing an old one.
+     * The species registered so far are recorded.
+     * @param file The file to write.
+     * @param field The field whose state is recorded.
+     * @throws IOException If the file cannot be created.
+     */
+    public PopulationRecorder(Path file, Field field) throws IOException
+    {
+        this(file, field, DEFAULT_BLOCK_RECORDS);
+    }
+
+    /**
+     * Create a recorder writing to a new file, or replacing an old one.
+     * The species registered so far are recorded.
+     * @param file The file to write.
+     * @param field The field whose state is recorded.
+     * @param blockRecords The number of records in a block; at least 1.
+     * @throws IOException If the file cannot be created.
+     */
+    public PopulationRecorder(Path file, Field field, int blockRecords) throws IOException
+    {
+        if(blockRecords < 1) {
+            throw new IllegalArgumentException("Blocks must hold at least one record: "
+                                               + blockRecords);
+        }
+        this.field = field;
+        this.blockRecords = blockRecords;
+        speciesCount = SpeciesRegistry.size();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(speciesCount);
+        header.putInt(blockRecords);
+        header.putLong(0);
+        for(int species = 1; species <= speciesCount; species++) {
+            byte[] name = SpeciesRegistry.getName(species).getBytes(StandardCharsets.UTF_8);
+            if(header.remaining() < 2 + name.length) {
+                channel.close();
+                throw new IllegalStateException("Too many species to record in " + file);
+            }
+            header.putShort((short) name.length);
+            header.put(name);
+        }
+        recordCount = 0;
+    }
+
+    /**
+     * Return the size of a block of records, in bytes.
+     * @param speciesCount The number of species recorded.
+     * @param blockRecords The number of records in a block.
+     * @return The size of a block.
+     */
+    public static long blockSize(int speciesCount, int blockRecords)
+    {
+        return (long) blockRecords * (4 + 1 + 1 + 4 * speciesCount);
+    }
+
+    /**
+     * Record the state of the field after a step.
+     * @param step The step just simulated.
+     */
+    public void record(int step)
+    {
+        int position = (int) (recordCount % blockRecords);
+        if(position == 0) {
+            mapBlock(recordCount / blockRecords);
+        }
+        // Column offsets within the block: steps, weather, day, counts.
+        int weatherColumn = blockRecords * 4;
+        int dayColumn = weatherColumn + blockRecords;
+        int countColumn = dayColumn + blockRecords;
+        block.putInt(position * 4, step);
+        block.put(weatherColumn + position, (byte) field.getWeatherCode());
+        block.put(dayColumn + position, (byte) (field.isDay() ? 1 : 0));
+        for(int species = 1; species <= speciesCount; species++) {
+            Entity kind = field.getKind((byte) species);
+            int count = kind == null ? 0 : kind.getCount();
+            block.putInt(countColumn + ((species - 1) * blockRecords + position) * 4, count);
+        }
+        recordCount++;
+        header.putLong(RECORD_COUNT_POSITION, recordCount);
+    }
+
+    /**
+     * @return The number of records written.
+     */
+    public long getRecordCount()
+    {
+        return recordCount;
+    }
+
+    /**
+     * Write the records to the disk and close the file. The recorder
+     * must not be used afterwards.
+     * @throws IOException If the file cannot be written.
+     */
+    public void close() throws IOException
+    {
+        if(block != null) {
+            block.force();
+        }
+        header.force();
+        channel.close();
+    }
+
+    /**
+     * Map a block of the file, making the file longer if needed.
+     * @param index The index of the block.
+     */
+    private void mapBlock(long index)
+    {
+        long size = blockSize(speciesCount, blockRecords);
+        try {
+            block = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * size, size);
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException("Cannot extend the recording", e);
+        }
+    }
+}
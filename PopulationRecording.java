@@ -0,0 +1,189 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file written by PopulationRecorder. Records are numbered from
+ * 0 in the order they were written. The blocks of the file are
+ * memory-mapped when first read, so a recording of any length can be
+ * opened at once, and reading one column of every record only touches
+ * the pages of that column.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class PopulationRecording
+{
+    // The file being read.
+    private final FileChannel channel;
+    // The header of the file.
+    private final MappedByteBuffer header;
+    // The number of species recorded; their ids run from 1.
+    private final int speciesCount;
+    // The number of records in a block.
+    private final int blockRecords;
+    // The names of the species, by column.
+    private final String[] names;
+    // The blocks mapped so far, by index.
+    private MappedByteBuffer[] blocks;
+
+    /**
+     * Open a recording.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read or is not a recording.
+     */
+    public PopulationRecording(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        header = channel.map(FileChannel.MapMode.READ_ONLY, 0, PopulationRecorder.HEADER_SIZE);
+        if(header.getInt() != PopulationRecorder.MAGIC
+           || header.getInt() != PopulationRecorder.VERSION) {
+            channel.close();
+            throw new IOException("Not a population recording: " + file);
+        }
+        speciesCount = header.getInt();
+        blockRecords = header.getInt();
+        header.position(PopulationRecorder.NAMES_POSITION);
+        names = new String[speciesCount];
+        for(int column = 0; column < speciesCount; column++) {
+            byte[] name = new byte[header.getShort()];
+            header.get(name);
+            names[column] = new String(name, StandardCharsets.UTF_8);
+        }
+        blocks = new MappedByteBuffer[0];
+    }
+
+    /**
+     * Return the number of records. This grows while a recorder is
+     * still writing the file.
+     * @return The number of records.
+     */
+    public long size()
+    {
+        return header.getLong(PopulationRecorder.RECORD_COUNT_POSITION);
+    }
+
+    /**
+     * @return The number of species recorded.
+     */
+    public int getSpeciesCount()
+    {
+        return speciesCount;
+    }
+
+    /**
+     * Return the name of a species, as given by SpeciesRegistry.getName
+     * when the recording was made.
+     * @param column The column of the species, from 0.
+     * @return The name of the species.
+     */
+    public String getSpeciesName(int column)
+    {
+        return names[column];
+    }
+
+    /**
+     * Return the column of a species.
+     * @param name The name of the species.
+     * @return The column of the species, or -1 if it was not recorded.
+     */
+    public int findSpecies(String name)
+    {
+        for(int column = 0; column < speciesCount; column++) {
+            if(names[column].equals(name)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param record The number of the record.
+     * @return The step of the record.
+     */
+    public int getStep(long record)
+    {
+        return blockOf(record).getInt(positionOf(record) * 4);
+    }
+
+    /**
+     * @param record The number of the record.
+     * @return The weather code of the record: Weather.SUNNY, RAINING or FOGGY.
+     */
+    public int getWeather(long record)
+    {
+        return blockOf(record).get(blockRecords * 4 + positionOf(record));
+    }
+
+    /**
+     * @param record The number of the record.
+     * @return Whether it was day at the record.
+     */
+    public boolean isDay(long record)
+    {
+        return blockOf(record).get(blockRecords * 5 + positionOf(record)) != 0;
+    }
+
+    /**
+     * Return the number of individuals of a species at a record.
+     * @param record The number of the record.
+     * @param column The column of the species, from 0.
+     * @return The number of individuals.
+     */
+    public int getCount(long record, int column)
+    {
+        int countColumn = blockRecords * 6;
+        return blockOf(record).getInt(countColumn + (column * blockRecords + positionOf(record)) * 4);
+    }
+
+    /**
+     * Close the file. The recording must not be used afterwards.
+     * @throws IOException If the file cannot be closed.
+     */
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * @return The position of a record within its block.
+     */
+    private int positionOf(long record)
+    {
+        return (int) (record % blockRecords);
+    }
+
+    /**
+     * Return the block holding a record, mapping it if needed.
+     * @param record The number of the record.
+     * @return The block.
+     */
+    private ByteBuffer blockOf(long record)
+    {
+        if(record < 0 || record >= size()) {
+            throw new IndexOutOfBoundsException("No record " + record + " of " + size());
+        }
+        int index = (int) (record / blockRecords);
+        if(index >= blocks.length) {
+            MappedByteBuffer[] grown = new MappedByteBuffer[Math.max(index + 1, blocks.length * 2)];
+            System.arraycopy(blocks, 0, grown, 0, blocks.length);
+            blocks = grown;
+        }
+        if(blocks[index] == null) {
+            long size = PopulationRecorder.blockSize(speciesCount, blockRecords);
+            try {
+                blocks[index] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                            PopulationRecorder.HEADER_SIZE + index * size, size);
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException("Cannot read the recording", e);
+            }
+        }
+        return blocks[index];
+    }
+}
@@ -0,0 +1,99 @@
+import java.util.Random;
+
+/**
+ * Hands out independent random streams derived from a single seed.
+ * A stream is identified by its purpose (the weather, the starting
+ * population, a tile of the field, ...), the run it is used in - a
+ * simulation starts a new run each time it is reset, so that the runs
+ * of one session are not alike - and two numbers whose meaning depends
+ * on the purpose, usually a step and a position. The same seed
+ * and identity always give the same stream, however many other streams
+ * have been used before and on whichever thread, so the parts of a
+ * simulation can run in any order and still give the same results.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class RandomStreams
+{
+    // The stream that creates the starting population, by run.
+    public static final int POPULATION = 1;
+    // The stream that changes the weather, by run and step.
+    public static final int WEATHER = 2;
+    // The stream of a tile of the field, by run, step and tile.
+    public static final int TILE = 3;
+
+    // The seed all streams are derived from.
+    private final long seed;
+
+    /**
+     * Create the streams of the given seed.
+     * @param seed The seed all streams are derived from.
+     */
+    public RandomStreams(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * Return the seed the streams are derived from.
+     * @return The seed.
+     */
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Create a new generator positioned at the start of a stream.
+     * @param purpose What the stream is used for, such as TILE.
+     * @param run The run the stream is used in.
+     * @param step The step the stream is used in, or another counter.
+     * @param key The position or item the stream belongs to.
+     * @return A generator for the stream.
+     */
+    public Random create(int purpose, long run, long step, long key)
+    {
+        return new Random(seedOf(purpose, run, step, key));
+    }
+
+    /**
+     * Move an existing generator to the start of a stream. This gives the
+     * same numbers as create, without allocating a new generator.
+     * @param rand The generator to reposition.
+     * @param purpose What the stream is used for, such as TILE.
+     * @param run The run the stream is used in.
+     * @param step The step the stream is used in, or another counter.
+     * @param key The position or item the stream belongs to.
+     */
+    public void reseed(Random rand, int purpose, long run, long step, long key)
+    {
+        rand.setSeed(seedOf(purpose, run, step, key));
+    }
+
+    /**
+     * Return the seed of a stream.
+     * @param purpose What the stream is used for.
+     * @param run The run the stream is used in.
+     * @param step The step the stream is used in.
+     * @param key The position or item the stream belongs to.
+     * @return The seed of the stream.
+     */
+    private long seedOf(int purpose, long run, long step, long key)
+    {
+        return mix(mix(mix(mix(seed + purpose) + run) + step) + key);
+    }
+
+    /**
+     * Scramble a number so that nearby inputs give unrelated outputs.
+     * @param value The number to scramble.
+     * @return The scrambled number.
+     */
+    private static long mix(long value)
+    {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
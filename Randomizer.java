@@ -2,8 +2,9 @@ import java.util.Random;
 
 /**
  * Provide control over the randomization of the simulation. By using the shared, fixed-seed 
- * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
- * 'useShared' to false to get different random behaviour every time.
+ * random streams, repeated runs will perform exactly the same (which helps with testing). Set 
+ * 'useShared' to false to get different random behaviour every time. Everything random in a
+ * simulation is drawn from its RandomStreams; there is no shared generator.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
@@ -12,9 +13,9 @@ public class Randomizer
 {
     // The default seed for control of randomization.
     private static final int SEED = 1111;
-    // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
-    // Determine whether a shared random generator is to be provided.
+    // The shared random streams, if required.
+    private static final RandomStreams streams = new RandomStreams(SEED);
+    // Determine whether the shared random streams are to be provided.
     private static final boolean useShared = true;
 
     /**
@@ -25,28 +26,17 @@ public class Randomizer
     }
 
     /**
-     * Provide a random generator.
-     * @return A random object.
+     * Provide the random streams of a simulation. With the shared
+     * randomizer these are always derived from the fixed seed.
+     * @return The random streams.
      */
-    public static Random getRandom()
+    public static RandomStreams getStreams()
     {
         if(useShared) {
-            return rand;
+            return streams;
         }
         else {
-            return new Random();
-        }
-    }
-    
-    /**
-     * Reset the randomization.
-     * This will have no effect if randomization is not through
-     * a shared Random generator.
-     */
-    public static void reset()
-    {
-        if(useShared) {
-            rand.setSeed(SEED);
+            return new RandomStreams(new Random().nextLong());
         }
     }
 }
@@ -0,0 +1,272 @@
+/**
+ * Runs a simulation for a number of steps, either on the calling thread
+ * or on a thread of its own, and controls how fast it goes.
+ *
+ * A run can be paused, resumed and cancelled at any time; the run checks
+ * for this between steps, so a step is never left half done. The speed is
+ * set as a target number of steps per second. With no target the run is
+ * unthrottled and goes as fast as it can, and then it only shows a frame
+ * every so many steps, or at a fixed frame rate, so that drawing the
+ * views does not slow it down.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class RunController
+{
+    // The simulation being run.
+    private final Simulator simulator;
+    // The thread of the background run, or null if there is none.
+    private Thread runner;
+    // Increased by every cancel; a run stops as soon as it changes.
+    private int generation;
+    // Whether runs are paused.
+    private boolean paused;
+    // The target number of steps per second, or 0 to run unthrottled.
+    private volatile double targetStepsPerSecond;
+    // The number of steps between frames shown when no frame rate is set.
+    private volatile int frameInterval;
+    // The number of frames shown per second, or 0 to show them by steps.
+    private volatile double frameRate;
+
+    /**
+     * Create a controller for a simulation. It runs every step at
+     * the given rate and shows every step.
+     * @param simulator The simulation to run.
+     * @param targetStepsPerSecond The target number of steps per second,
+     *                             or 0 to run unthrottled.
+     */
+    public RunController(Simulator simulator, double targetStepsPerSecond)
+    {
+        this.simulator = simulator;
+        this.targetStepsPerSecond = Math.max(0, targetStepsPerSecond);
+        frameInterval = 1;
+        frameRate = 0;
+    }
+
+    /**
+     * Start running the simulation for the given number of steps on a
+     * thread of its own. Any run already going is cancelled first.
+     * @param numSteps The number of steps to run for.
+     */
+    public void start(int numSteps)
+    {
+        cancel();
+        synchronized(this) {
+            int runGeneration = generation;
+            paused = false;
+            runner = new Thread(() -> run(numSteps, runGeneration), "Simulation");
+            runner.setDaemon(true);
+            runner.start();
+        }
+    }
+
+    /**
+     * Run the simulation for the given number of steps on the calling
+     * thread. Stop before then if it ceases to be viable or the run is
+     * cancelled from another thread.
+     * @param numSteps The number of steps to run for.
+     */
+    public void run(int numSteps)
+    {
+        int runGeneration;
+        synchronized(this) {
+            runGeneration = generation;
+        }
+        run(numSteps, runGeneration);
+    }
+
+    /**
+     * Run the simulation for the given number of steps on the calling
+     * thread, until the generation changes.
+     * @param numSteps The number of steps to run for.
+     * @param runGeneration The generation of the run.
+     */
+    private void run(int numSteps, int runGeneration)
+    {
+        long nextStepTime = System.nanoTime();
+        long nextFrameTime = nextStepTime;
+        int stepsSinceFrame = 0;
+        for(int step = 1; step <= numSteps && simulator.isViable(); step++) {
+            if(!waitWhilePaused(runGeneration)) {
+                break;
+            }
+            long now = System.nanoTime();
+            boolean show;
+            if(frameRate > 0) {
+                show = now >= nextFrameTime;
+            }
+            else {
+                show = stepsSinceFrame + 1 >= frameInterval;
+            }
+            simulator.simulateOneStep(show);
+            if(show) {
+                stepsSinceFrame = 0;
+                nextFrameTime = now + (long) (1e9 / Math.max(frameRate, 1));
+            }
+            else {
+                stepsSinceFrame++;
+            }
+
+            double rate = targetStepsPerSecond;
+            if(rate > 0) {
+                // Keep to the rate, but do not make up for time lost
+                // while paused or behind by running faster afterwards.
+                nextStepTime = Math.max(nextStepTime + (long) (1e9 / rate), now);
+                if(!waitUntil(nextStepTime, runGeneration)) {
+                    break;
+                }
+            }
+            else if(isCancelled(runGeneration)) {
+                break;
+            }
+        }
+        if(stepsSinceFrame > 0) {
+            // Show where the run stopped.
+            simulator.showStatus();
+        }
+    }
+
+    /**
+     * Stop the current run after the step it is on, and wait for it to
+     * stop. Has no effect if there is no run going.
+     */
+    public void cancel()
+    {
+        Thread stopping;
+        synchronized(this) {
+            generation++;
+            notifyAll();
+            stopping = runner;
+            runner = null;
+        }
+        if(stopping != null && stopping != Thread.currentThread()) {
+            boolean interrupted = false;
+            while(stopping.isAlive()) {
+                try {
+                    stopping.join();
+                }
+                catch(InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if(interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Pause the current run after the step it is on. A synchronous run
+     * started afterwards waits until resumed.
+     */
+    public synchronized void pause()
+    {
+        paused = true;
+    }
+
+    /**
+     * Resume a paused run.
+     */
+    public synchronized void resume()
+    {
+        paused = false;
+        notifyAll();
+    }
+
+    /**
+     * @return Whether runs are paused.
+     */
+    public synchronized boolean isPaused()
+    {
+        return paused;
+    }
+
+    /**
+     * @return Whether a run is going on a thread of its own.
+     */
+    public synchronized boolean isRunning()
+    {
+        return runner != null && runner.isAlive();
+    }
+
+    /**
+     * Set the speed of the runs.
+     * @param targetStepsPerSecond The target number of steps per second,
+     *                             or 0 to run unthrottled.
+     */
+    public void setTargetStepsPerSecond(double targetStepsPerSecond)
+    {
+        this.targetStepsPerSecond = Math.max(0, targetStepsPerSecond);
+    }
+
+    /**
+     * Show a frame every given number of steps. Cancels any frame rate.
+     * @param steps The number of steps between frames; at least 1.
+     */
+    public void setFrameInterval(int steps)
+    {
+        frameInterval = Math.max(1, steps);
+        frameRate = 0;
+    }
+
+    /**
+     * Show frames at a fixed rate, however fast the steps go. The last
+     * step of a run is always shown.
+     * @param framesPerSecond The number of frames per second, or 0 to
+     *                        show them by steps again.
+     */
+    public void setFrameRate(double framesPerSecond)
+    {
+        frameRate = Math.max(0, framesPerSecond);
+    }
+
+    /**
+     * @param runGeneration The generation of a run.
+     * @return Whether the run has been cancelled.
+     */
+    private synchronized boolean isCancelled(int runGeneration)
+    {
+        return generation != runGeneration;
+    }
+
+    /**
+     * Wait while runs are paused. Being interrupted cancels the run.
+     * @param runGeneration The generation of the run.
+     * @return false if the run was cancelled.
+     */
+    private synchronized boolean waitWhilePaused(int runGeneration)
+    {
+        while(paused && generation == runGeneration) {
+            try {
+                wait();
+            }
+            catch(InterruptedException e) {
+                return false;
+            }
+        }
+        return generation == runGeneration;
+    }
+
+    /**
+     * Wait until the given time, unless the run is cancelled first.
+     * Being interrupted cancels the run.
+     * @param deadline The time to wait for, as given by System.nanoTime.
+     * @param runGeneration The generation of the run.
+     * @return false if the run was cancelled.
+     */
+    private synchronized boolean waitUntil(long deadline, int runGeneration)
+    {
+        long remaining = deadline - System.nanoTime();
+        while(remaining > 0 && generation == runGeneration) {
+            try {
+                wait(remaining / 1000000, (int) (remaining % 1000000));
+            }
+            catch(InterruptedException e) {
+                return false;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+        return generation == runGeneration;
+    }
+}
@@ -1,7 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.awt.Color;
 
 /**
@@ -34,17 +33,49 @@ public class Simulator
     private static final double TIGER_CREATION_PROBABILITY = 0.01;
     // The probability that a acacia will be created in any given grid position.
     private static final double ACACIA_CREATION_PROBABILITY = 0.045;
+    // The number of steps in a long run.
+    private static final int LONG_RUN_STEPS = 4000;
+    // The number of past steps kept to be shown again.
+    private static final int HISTORY_STEPS = 2000;
+    // The number of steps from one full copy of the field in the history to the next.
+    private static final int KEYFRAME_INTERVAL = 64;
+    // The speed at which runs with views go, so that they can be followed.
+    public static final double DEFAULT_STEPS_PER_SECOND = 1000.0 / 30;
 
-    // List of animals in the field.
-    private List<Entity> entities;
+    // The state of every plant and animal in the field.
+    private EntityStore store;
+    // The species of the simulation, in the order in which they act.
+    private Grass grass;
+    private Acacia acacia;
+    private Rabbit rabbits;
+    private Mouse mice;
+    private Giraffe giraffes;
+    private Fox foxes;
+    private Snake snakes;
+    private Tiger tigers;
     // The current state of the field.
     private Field field;
+    // Runs the steps, on this thread or on several.
+    private TiledStepEngine engine;
+    // Runs the simulation for many steps, and sets its speed.
+    private RunController controller;
+    // Records the populations after every step, or null.
+    private PopulationRecorder recorder;
+    // Keeps the recent steps so that they can be shown again, or null.
+    private FrameHistory history;
+    // The random streams every part of the simulation draws from.
+    private RandomStreams streams;
+    // The number of times the simulation has been reset.
+    private int resets;
     // The current step of the simulation.
     private int step;
-    // A graphical view of the simulation.
-    private SimulatorView view;
-    //A graphical view of the graph
-    private GraphView graphView;
+    // The factor by which the creation probabilities are scaled.
+    private double density;
+    // Passes the frames of the simulation to its views. Has no views
+    // when running headless.
+    private FramePipeline views;
+    // Statistics used to decide whether the simulation is still viable.
+    private FieldStats stats;
     
     /**
      * Construct a simulation field with default size.
@@ -60,6 +91,20 @@ public class Simulator
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, false);
+    }
+    
+    /**
+     * Create a simulation field with the given size, optionally without
+     * any graphical views. A headless simulator opens no windows and
+     * does not pause between steps, so it can be used for batch runs
+     * on machines without a display.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param headless Whether to run without the Swing views.
+     */
+    public Simulator(int depth, int width, boolean headless)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
@@ -68,11 +113,42 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
         
-        entities = new ArrayList<>();
-        field = new Field(depth, width);
+        streams = Randomizer.getStreams();
+        store = new EntityStore();
+        field = new Field(depth, width, streams);
+        engine = new TiledStepEngine(field, streams, 0);
+        grass = new Grass(field, store);
+        acacia = new Acacia(field, store);
+        rabbits = new Rabbit(field, store);
+        mice = new Mouse(field, store);
+        giraffes = new Giraffe(field, store);
+        foxes = new Fox(field, store);
+        snakes = new Snake(field, store);
+        tigers = new Tiger(field, store);
+        stats = new FieldStats();
+        views = new FramePipeline();
+        controller = new RunController(this, headless ? 0 : DEFAULT_STEPS_PER_SECOND);
+        density = 1.0;
 
-        // Create a view of the state of each location in the field.
-        view = new SimulatorView(depth, width,this);
+        if(!headless) {
+            history = new FrameHistory(depth, width, HISTORY_STEPS, KEYFRAME_INTERVAL);
+            // Create a view of the state of each location in the field.
+            addView(new SimulatorView(depth, width, this));
+            // Create the graph view with the state of each location
+            addView(new GraphView(500, 150, 500));
+        }
+        
+        // Setup a valid starting point.
+        reset();
+    }
+    
+    /**
+     * Add a view that is shown the state of the field after every step.
+     * The view is given the colors used for each species.
+     * @param view The view to add.
+     */
+    public void addView(View view)
+    {
         view.setColor(Rabbit.class, Color.ORANGE);
         view.setColor(Fox.class, Color.BLUE);
         view.setColor(Giraffe.class, Color.MAGENTA);
@@ -81,20 +157,7 @@ public class Simulator
         view.setColor(Snake.class, Color.RED);
         view.setColor(Tiger.class, Color.BLACK);
         view.setColor(Acacia.class, new Color(0,102,0));
-        
-        // Create the graph view with the state of each location
-        graphView = new GraphView(500, 150, 500);
-        graphView.setColor(Rabbit.class, Color.ORANGE);
-        graphView.setColor(Fox.class, Color.BLUE);
-        graphView.setColor(Giraffe.class, Color.MAGENTA);
-        graphView.setColor(Grass.class, Color.GREEN);
-        graphView.setColor(Mouse.class, new Color(165, 42, 42));
-        graphView.setColor(Snake.class, Color.RED);
-        graphView.setColor(Tiger.class, Color.BLACK);
-        graphView.setColor(Acacia.class, new Color(0,102,0));
-        
-        // Setup a valid starting point.
-        reset();
+        views.addView(view);
     }
     
     /**
@@ -103,49 +166,192 @@ public class Simulator
      */
     public void runLongSimulation()
     {
-        simulate(4000);
+        simulate(LONG_RUN_STEPS);
+    }
+    
+    /**
+     * Start running the simulation from its current state for a reasonably
+     * long period (4000 steps) on a thread of its own, cancelling any run
+     * already going. The run can be paused and cancelled through the
+     * run controller.
+     */
+    public void startLongSimulation()
+    {
+        controller.start(LONG_RUN_STEPS);
     }
     
     /**
      * Run the simulation from its current state for the given number of steps.
      * Stop before the given number of steps if it ceases to be viable.
+     * The speed of the run is set by the run controller.
      * @param numSteps The number of steps to run for.
      */
     public void simulate(int numSteps)
     {
-        for(int step = 1; step <= numSteps && view.isViable(field); step++) {
-            simulateOneStep();
-            delay(30);   // uncomment this to run more slowly
+        controller.run(numSteps);
+    }
+    
+    /**
+     * Return the controller that runs the simulation. With views the
+     * simulation runs at DEFAULT_STEPS_PER_SECOND; headless, unthrottled.
+     * @return The run controller.
+     */
+    public RunController getRunController()
+    {
+        return controller;
+    }
+    
+    /**
+     * Determine whether the simulation should continue to run.
+     * This does not depend on any view, so it also works headless.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        stats.reset();
+        return stats.isViable(field);
+    }
+    
+    /**
+     * Set the factor by which the creation probabilities of all species
+     * are scaled the next time the field is populated. A factor of 1.0
+     * gives the default starting population.
+     * @param density The scaling factor. Must not be negative.
+     */
+    public void setPopulationDensity(double density)
+    {
+        if(density >= 0) {
+            this.density = density;
         }
     }
     
+    /**
+     * Set the number of threads the steps are run on. With a parallelism
+     * of zero (the default) the steps run on the calling thread. The
+     * field is updated tile by tile either way (see TiledStepEngine), so
+     * the results depend only on the seed, not on the number of threads.
+     * @param parallelism The number of threads, or zero.
+     */
+    public void setParallelism(int parallelism)
+    {
+        if(parallelism >= 0 && parallelism != engine.getParallelism()) {
+            engine.shutdown();
+            engine = new TiledStepEngine(field, streams, parallelism);
+        }
+    }
+    
+    /**
+     * Record the populations, weather and time of day after every step
+     * from now on.
+     * @param recorder The recorder to write to, or null to stop recording.
+     */
+    public void setRecorder(PopulationRecorder recorder)
+    {
+        this.recorder = recorder;
+    }
+    
+    /**
+     * Keep the recent steps from now on, so that they can be shown again.
+     * Simulations with views keep HISTORY_STEPS steps from the start.
+     * @param history The history to keep the steps in, or null to stop.
+     */
+    public void setHistory(FrameHistory history)
+    {
+        this.history = history;
+        recordHistory();
+    }
+    
+    /**
+     * Return the history of the recent steps.
+     * @return The history, or null if none is kept.
+     */
+    public FrameHistory getHistory()
+    {
+        return history;
+    }
+    
+    /**
+     * Save the whole state of the simulation to a file, so that it can be
+     * continued later with restoreCheckpoint. Must not be called while
+     * a run is going on another thread.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void saveCheckpoint(Path file) throws IOException
+    {
+        Checkpoint.write(file, field, streams.getSeed(), step, resets, density);
+    }
+    
+    /**
+     * Replace the state of the simulation by one saved with saveCheckpoint.
+     * The simulation then continues exactly as the saved one would have.
+     * Must not be called while a run is going on another thread.
+     * @param file The file to read.
+     * @throws IOException If the file cannot be read, or was saved by a
+     *                     simulation of a different size or seed.
+     */
+    public void restoreCheckpoint(Path file) throws IOException
+    {
+        Checkpoint checkpoint = Checkpoint.read(file, field, store, streams.getSeed());
+        step = checkpoint.getStep();
+        resets = checkpoint.getResets();
+        density = checkpoint.getDensity();
+        recordHistory();
+        views.reset();
+        showStatus();
+    }
+    
+    /**
+     * Return the field of the simulation.
+     * @return The field.
+     */
+    public Field getField()
+    {
+        return field;
+    }
+    
+    /**
+     * Return the current step of the simulation.
+     * @return The number of steps simulated since the last reset.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+    
     /**
      * Run the simulation from its current state for a single step.
-     * Iterate over the whole field updating the state of each
-     * fox and rabbit.
+     * Every individual acts once, tile by tile.
      */
     public void simulateOneStep()
+    {
+        simulateOneStep(true);
+    }
+    
+    /**
+     * Run the simulation from its current state for a single step,
+     * and show the result in the views if asked to. Steps that are not
+     * shown are still included in the changes of the next frame.
+     * @param show Whether to show the state after the step.
+     */
+    public void simulateOneStep(boolean show)
     {
         step++;
         field.increaseStep();
         
         
-        // Provide space for newborn animals.
-        List<Entity> newEntities = new ArrayList<>();        
-        // Let all rabbits act.
-        for(Iterator<Entity> it = entities.iterator(); it.hasNext(); ) {
-            Entity entity = it.next();
-            entity.act(newEntities);
-            if(! entity.isAlive()) {
-                it.remove();
-            }
+        // Let every plant and animal act. Those born during the
+        // step act from the next one.
+        engine.step();
+        store.recycleSlots();
+        if(recorder != null) {
+            recorder.record(step);
         }
-               
-        // Add the newly born foxes and rabbits to the main lists.
-        entities.addAll(newEntities);
+        recordHistory();
 
-        view.showStatus(step, field);
-        graphView.showStatus(step, field);
+        if(show) {
+            showStatus();
+        }
     }
         
     /**
@@ -154,12 +360,38 @@ public class Simulator
     public void reset()
     {
         step = 0;
-        entities.clear();
+        resets++;
+        field.startRun(resets);
+        store.clear();
+        views.reset();
         populate();
+        recordHistory();
         
-        // Show the starting state in the view.
-        view.showStatus(step, field);
-        graphView.reset();
+        // Show the starting state in the views.
+        showStatus();
+    }
+    
+    /**
+     * Add the current state of the field to the history, if one is kept.
+     */
+    private void recordHistory()
+    {
+        if(history != null) {
+            history.record(step, field);
+        }
+    }
+    
+    /**
+     * Show the current state of the field in every view. A single
+     * snapshot of the field is taken and shared by all of them. The
+     * views draw it later on the event dispatch thread, so the
+     * simulation does not wait for them.
+     */
+    public void showStatus()
+    {
+        if(!views.isEmpty()) {
+            views.publish(new FrameSnapshot(step, field));
+        }
     }
     
     /**
@@ -167,67 +399,37 @@ public class Simulator
      */
     private void populate()
     {
-        Random rand = Randomizer.getRandom();
+        Random rand = streams.create(RandomStreams.POPULATION, resets, 0, 0);
         field.clear();
         for(int row = 0; row < field.getDepth(); row++) {
             for(int col = 0; col < field.getWidth(); col++) {
                 boolean gender = rand.nextBoolean();
-                if(rand.nextDouble() <= GRASS_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Grass grass = new Grass(field, location);
-                    entities.add(grass);
+                if(rand.nextDouble() <= GRASS_CREATION_PROBABILITY * density) {
+                    grass.create(field.getLocation(row, col));
                 }
-                else if(rand.nextDouble() <= ACACIA_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Acacia acacia = new Acacia(field, location);
-                    entities.add(acacia);
+                else if(rand.nextDouble() <= ACACIA_CREATION_PROBABILITY * density) {
+                    acacia.create(field.getLocation(row, col));
                 }
-                else if(rand.nextDouble() <= FOX_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Fox fox = new Fox(true, gender, field, location);
-                    entities.add(fox);
+                else if(rand.nextDouble() <= FOX_CREATION_PROBABILITY * density) {
+                    foxes.create(true, gender, field.getLocation(row, col), rand);
                 }
-                else if(rand.nextDouble() <= SNAKE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Snake snake = new Snake(true, gender, field, location);
-                    entities.add(snake);
+                else if(rand.nextDouble() <= SNAKE_CREATION_PROBABILITY * density) {
+                    snakes.create(true, gender, field.getLocation(row, col), rand);
                 }
-                else if(rand.nextDouble() <= RABBIT_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Rabbit rabbit = new Rabbit(true, gender, field, location);
-                    entities.add(rabbit);
+                else if(rand.nextDouble() <= RABBIT_CREATION_PROBABILITY * density) {
+                    rabbits.create(true, gender, field.getLocation(row, col), rand);
                 }
-                else if(rand.nextDouble() <= MOUSE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Mouse mouse = new Mouse(true, gender, field, location);
-                    entities.add(mouse);
+                else if(rand.nextDouble() <= MOUSE_CREATION_PROBABILITY * density) {
+                    mice.create(true, gender, field.getLocation(row, col), rand);
                 }
-                else if(rand.nextDouble() <= GIRAFFE_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Giraffe giraffe= new Giraffe(true, gender, field, location);
-                    entities.add(giraffe);
+                else if(rand.nextDouble() <= GIRAFFE_CREATION_PROBABILITY * density) {
+                    giraffes.create(true, gender, field.getLocation(row, col), rand);
                 }
-                else if(rand.nextDouble() <= TIGER_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Tiger tiger= new Tiger(true, gender, field, location);
-                    entities.add(tiger);
+                else if(rand.nextDouble() <= TIGER_CREATION_PROBABILITY * density) {
+                    tigers.create(true, gender, field.getLocation(row, col), rand);
                 }
                 // else leave the location empty.
             }
         }
     }
-    
-    /**
-     * Pause for a given time.
-     * @param millisec  The time to pause for, in milliseconds
-     */
-    private void delay(int millisec)
-    {
-        try {
-            Thread.sleep(millisec);
-        }
-        catch (InterruptedException ie) {
-            // wake up
-        }
-    }
 }
@@ -0,0 +1,342 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A benchmark suite for the simulation step and the hot paths of the field.
+ * It measures Simulator.simulateOneStep at several grid sizes and starting
+ * densities, and the neighbourhood and statistics queries of the field on
+ * their own. Every benchmark reports its throughput, the latency percentiles
+ * of single operations (or batches of operations for the very short ones),
+ * and the allocation rate and garbage collections observed while it ran.
+ *
+ * Run it headless from the command line, for example:
+ *     java SimulatorBenchmark            (all benchmarks)
+ *     java SimulatorBenchmark step       (only the simulation step)
+ *     java SimulatorBenchmark field stats
+ * The number of measured steps can be raised with -Dbench.steps=n, and
+ * the step can be run on n threads by the tiled engine with
+ * -Dbench.threads=n.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class SimulatorBenchmark
+{
+    // The grid sizes (depth, width) the simulation step is measured at.
+    private static final int[][] GRID_SIZES = {{80, 120}, {500, 500}, {2000, 2000}};
+    // The starting densities, as factors of the default creation probabilities.
+    private static final double[] DENSITIES = {0.5, 1.0, 2.0};
+    // The number of cells simulated during the measurement of one configuration.
+    private static final long CELL_STEPS = 4_000_000L;
+    // The fewest steps measured for one configuration, so that the 99th
+    // percentile is not simply the slowest step.
+    private static final int MIN_STEP_SAMPLES = 100;
+    // The number of operations per batch in the microbenchmarks.
+    private static final int BATCH_SIZE = 1000;
+    // The number of batches measured in the microbenchmarks.
+    private static final int BATCHES = 2000;
+
+    // The thread bean used to read the allocated bytes of this thread.
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    // Receives the results of the microbenchmarks so they cannot be optimised away.
+    private static long sink;
+
+    /**
+     * Run the benchmarks named on the command line, or all of them.
+     * @param args Any of "step", "field" and "stats".
+     */
+    public static void main(String[] args)
+    {
+        List<String> selected = Arrays.asList(args);
+        boolean all = selected.isEmpty();
+        System.out.printf("%-44s %14s %10s %10s %10s %10s %12s %6s%n",
+                          "Benchmark", "ops/s", "p50 ns", "p90 ns", "p99 ns", "max ns",
+                          "B/op", "gc");
+        if(all || selected.contains("step")) {
+            for(int[] size : GRID_SIZES) {
+                for(double density : DENSITIES) {
+                    benchmarkStep(size[0], size[1], density);
+                }
+            }
+        }
+        if(all || selected.contains("field")) {
+            benchmarkAdjacentLocations();
+            benchmarkFreeAdjacentLocations();
+        }
+        if(all || selected.contains("stats")) {
+            benchmarkGenerateCounts();
+        }
+        consumeSink();
+    }
+
+    /**
+     * Print the sum of the results of the microbenchmarks, so that the
+     * work that produced them cannot be optimised away.
+     */
+    private static void consumeSink()
+    {
+        System.out.println("sink: " + sink);
+    }
+
+    /**
+     * Measure single steps of a headless simulation of the given size.
+     * The simulation is warmed up first and then every step is timed.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @param density The starting density factor.
+     */
+    private static void benchmarkStep(int depth, int width, double density)
+    {
+        int steps = Math.max(MIN_STEP_SAMPLES,
+                             Integer.getInteger("bench.steps",
+                                                (int) (CELL_STEPS / ((long) depth * width))));
+        int threads = Integer.getInteger("bench.threads", 0);
+        Simulator simulator = new Simulator(depth, width, true);
+        simulator.setParallelism(threads);
+        simulator.setPopulationDensity(density);
+        simulator.reset();
+        for(int i = 0; i < steps / 2; i++) {
+            simulator.simulateOneStep();
+        }
+
+        long[] samples = new long[steps];
+        Measurement measurement = new Measurement();
+        for(int i = 0; i < steps; i++) {
+            long start = System.nanoTime();
+            simulator.simulateOneStep();
+            samples[i] = System.nanoTime() - start;
+        }
+        measurement.finish();
+        report("simulateOneStep " + depth + "x" + width + " density=" + density
+               + (threads > 0 ? " threads=" + threads : ""),
+               samples, 1, measurement);
+        simulator.setParallelism(0);
+    }
+
+    /**
+     * Measure Field.adjacentLocations at random locations of the default field.
+     */
+    private static void benchmarkAdjacentLocations()
+    {
+        Field field = populatedField(80, 120);
+        Location[] locations = randomLocations(field);
+        Random rand = new Random(2);
+        runBatches("Field.adjacentLocations", () -> {
+            for(int i = 0; i < BATCH_SIZE; i++) {
+                sink += field.adjacentLocations(locations[i], rand).size();
+            }
+        });
+    }
+
+    /**
+     * Measure Field.getFreeAdjacentLocations with a distance of two
+     * at random locations of the default field.
+     */
+    private static void benchmarkFreeAdjacentLocations()
+    {
+        Field field = populatedField(80, 120);
+        Location[] locations = randomLocations(field);
+        Random rand = new Random(2);
+        runBatches("Field.getFreeAdjacentLocations(loc, 2)", () -> {
+            for(int i = 0; i < BATCH_SIZE; i++) {
+                sink += field.getFreeAdjacentLocations(locations[i], 2, rand).size();
+            }
+        });
+    }
+
+    /**
+     * Measure a full count of the default field by FieldStats.
+     */
+    private static void benchmarkGenerateCounts()
+    {
+        Field field = populatedField(80, 120);
+        FieldStats stats = new FieldStats();
+        long[] samples = new long[BATCHES];
+        for(int i = 0; i < BATCHES; i++) {
+            stats.reset();
+            stats.isViable(field);
+        }
+        Measurement measurement = new Measurement();
+        for(int i = 0; i < BATCHES; i++) {
+            long start = System.nanoTime();
+            stats.reset();
+            if(stats.isViable(field)) {
+                sink++;
+            }
+            samples[i] = System.nanoTime() - start;
+        }
+        measurement.finish();
+        report("FieldStats.generateCounts 80x120", samples, 1, measurement);
+    }
+
+    /**
+     * Warm up and then time batches of a microbenchmark.
+     * @param name The name of the benchmark.
+     * @param batch Runs BATCH_SIZE operations.
+     */
+    private static void runBatches(String name, Runnable batch)
+    {
+        for(int i = 0; i < BATCHES; i++) {
+            batch.run();
+        }
+        long[] samples = new long[BATCHES];
+        Measurement measurement = new Measurement();
+        for(int i = 0; i < BATCHES; i++) {
+            long start = System.nanoTime();
+            batch.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        measurement.finish();
+        report(name, samples, BATCH_SIZE, measurement);
+    }
+
+    /**
+     * Create a field of the given size populated as by a fresh simulation.
+     * @param depth The depth of the field.
+     * @param width The width of the field.
+     * @return The populated field.
+     */
+    private static Field populatedField(int depth, int width)
+    {
+        return new Simulator(depth, width, true).getField();
+    }
+
+    /**
+     * Pick BATCH_SIZE random locations within the field.
+     * @param field The field to pick locations in.
+     * @return The locations.
+     */
+    private static Location[] randomLocations(Field field)
+    {
+        Random rand = new Random(1);
+        Location[] locations = new Location[BATCH_SIZE];
+        for(int i = 0; i < BATCH_SIZE; i++) {
+            locations[i] = field.getLocation(rand.nextInt(field.getDepth()),
+                                             rand.nextInt(field.getWidth()));
+        }
+        return locations;
+    }
+
+    /**
+     * Print one line of results.
+     * @param name The name of the benchmark.
+     * @param samples The measured durations in nanoseconds.
+     * @param opsPerSample The number of operations timed by each sample.
+     * @param measurement The allocation and garbage collection figures.
+     */
+    private static void report(String name, long[] samples, int opsPerSample,
+                               Measurement measurement)
+    {
+        long total = 0;
+        for(long sample : samples) {
+            total += sample;
+        }
+        long ops = (long) samples.length * opsPerSample;
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        String bytesPerOp = measurement.allocated < 0 ? "n/a"
+                            : String.valueOf(measurement.allocated / ops);
+        System.out.printf("%-44s %14.1f %10d %10d %10d %10d %12s %6d%n",
+                          name, ops * 1e9 / total,
+                          percentile(sorted, 0.50) / opsPerSample,
+                          percentile(sorted, 0.90) / opsPerSample,
+                          percentile(sorted, 0.99) / opsPerSample,
+                          sorted[sorted.length - 1] / opsPerSample,
+                          bytesPerOp, measurement.collections);
+    }
+
+    /**
+     * Return a percentile of sorted samples.
+     * @param sorted The samples in ascending order.
+     * @param fraction The percentile as a fraction between 0 and 1.
+     * @return The sample at that percentile.
+     */
+    private static long percentile(long[] sorted, double fraction)
+    {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Return the number of bytes allocated so far by each live thread,
+     * including the threads of the step engine, or null if the virtual
+     * machine cannot tell.
+     * @return The bytes allocated, by thread id.
+     */
+    private static Map<Long, Long> allocatedBytes()
+    {
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+            if(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                long[] ids = bean.getAllThreadIds();
+                long[] bytes = bean.getThreadAllocatedBytes(ids);
+                Map<Long, Long> allocated = new HashMap<>();
+                for(int i = 0; i < ids.length; i++) {
+                    if(bytes[i] >= 0) {
+                        allocated.put(ids[i], bytes[i]);
+                    }
+                }
+                return allocated;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the number of garbage collections run so far.
+     */
+    private static long collectionCount()
+    {
+        long count = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * The allocation and garbage collection figures over one measurement.
+     * Allocations are counted across all threads.
+     */
+    private static class Measurement
+    {
+        private final Map<Long, Long> startBytes;
+        private final long startCollections;
+        private long allocated;
+        private long collections;
+
+        /**
+         * Start a measurement.
+         */
+        public Measurement()
+        {
+            startBytes = allocatedBytes();
+            startCollections = collectionCount();
+        }
+
+        /**
+         * Finish the measurement.
+         */
+        public void finish()
+        {
+            Map<Long, Long> endBytes = allocatedBytes();
+            if(startBytes == null || endBytes == null) {
+                allocated = -1;
+            }
+            else {
+                // Threads that ended during the measurement are not counted.
+                allocated = 0;
+                for(Map.Entry<Long, Long> thread : endBytes.entrySet()) {
+                    allocated += thread.getValue() - startBytes.getOrDefault(thread.getKey(), 0L);
+                }
+            }
+            collections = collectionCount() - startCollections;
+        }
+    }
+}
@@ -1,8 +1,9 @@
 import java.awt.*;
 import java.awt.event.*;
+import javax.swing.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.List;
 import java.util.Arrays;
 
@@ -32,17 +33,21 @@ public class SimulatorView extends JFrame implements View
     private final String WEATHER_PREFIX = "Weather: ";
     private final String TIME_PREFIX = "Time: ";
     private JLabel weatherLabel,timeLabel;
-    private JButton simulateOneStepBtn,resetBtn, simulateLongRun;
+    private JButton simulateOneStepBtn,resetBtn, simulateLongRun, pauseBtn;
     private FieldView fieldView;
+    // Scrubs through the steps kept in the history of the simulation.
+    private JSlider historySlider;
+    // Whether the slider is being moved to follow the simulation.
+    private boolean updatingSlider;
+    // Whether a step from the history is being shown. Frames of the
+    // running simulation are not shown until the user goes back to it.
+    private boolean showingHistory;
     
-    // A map for storing colors for participants in the simulation
-    private Map<Class, Color> colors;
-    // A statistics object computing and storing simulation information
-    private FieldStats stats;
+    // The packed RGB colors of the participants in the simulation, by
+    // species id. Element 0 is the color of empty locations.
+    private int[] rgb;
     private Simulator simulator;
     
-    private static Thread longSimThread;
-    private boolean threadStarted;
     /**
      * Create a view of the given width and height.
      * @param height The simulation's height.
@@ -50,8 +55,10 @@ public class SimulatorView extends JFrame implements View
      */
     public SimulatorView(int height, int width, Simulator simulator)
     {
-        stats = new FieldStats();
-        colors = new LinkedHashMap<>();
+        this.simulator = simulator;
+        rgb = new int[SpeciesRegistry.MAX_SPECIES + 1];
+        Arrays.fill(rgb, UNKNOWN_COLOR.getRGB());
+        rgb[Field.EMPTY] = EMPTY_COLOR.getRGB();
 
         setTitle("Predator/Prey Simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
@@ -66,15 +73,11 @@ public class SimulatorView extends JFrame implements View
         weatherLabel = new JLabel(WEATHER_PREFIX + produce20CharacterPadding(""), JLabel.CENTER);
         timeLabel = new JLabel(TIME_PREFIX + produce20CharacterPadding(""), JLabel.CENTER);
         
-        threadStarted = false;
-        
         simulateOneStepBtn = new JButton("Simulate one step");
         simulateOneStepBtn.addActionListener(new ActionListener() {
                                public void actionPerformed(ActionEvent e) {
-                                   if(threadStarted){
-                                       longSimThread.stop();
-                                       threadStarted = false;
-                                   }
+                                   simulator.getRunController().cancel();
+                                   showLive();
                                    simulator.simulateOneStep(); 
                                 }
                            });
@@ -82,27 +85,51 @@ public class SimulatorView extends JFrame implements View
         resetBtn = new JButton("Reset");
         resetBtn.addActionListener(new ActionListener() {
                                public void actionPerformed(ActionEvent e) {
-                                   if(threadStarted){
-                                       longSimThread.stop();
-                                       threadStarted = false;
-                                   }
+                                   simulator.getRunController().cancel();
+                                   showLive();
                                    simulator.reset(); 
                                 }
                            });
         simulateLongRun = new JButton("Simulate Long Run");
         simulateLongRun.addActionListener(new ActionListener(){
                             public void actionPerformed(ActionEvent e) {
-                                if (threadStarted){
-                                    longSimThread.stop();
+                                RunController controller = simulator.getRunController();
+                                if (controller.isRunning()){
+                                    controller.cancel();
                                     simulator.reset();
                                 }
-                                longSimThread = new Thread(simulator::runLongSimulation);
-                                longSimThread.start();
-                                threadStarted =  true;
+                                showLive();
+                                simulator.startLongSimulation();
+                                pauseBtn.setText("Pause");
+                            }
+        });
+        pauseBtn = new JButton("Pause");
+        pauseBtn.addActionListener(new ActionListener(){
+                            public void actionPerformed(ActionEvent e) {
+                                RunController controller = simulator.getRunController();
+                                if (controller.isPaused()){
+                                    showLive();
+                                    controller.resume();
+                                    pauseBtn.setText("Pause");
+                                }
+                                else {
+                                    controller.pause();
+                                    pauseBtn.setText("Resume");
+                                }
                             }
         });
         
         
+        historySlider = new JSlider(0, 0);
+        historySlider.setToolTipText("Show one of the recent steps again");
+        historySlider.addChangeListener(new ChangeListener(){
+                            public void stateChanged(ChangeEvent e) {
+                                if (!updatingSlider){
+                                    showHistory(historySlider.getValue());
+                                }
+                            }
+        });
+        
         fieldView = new FieldView(height, width);
 
         Container contents = getContentPane();
@@ -110,12 +137,14 @@ public class SimulatorView extends JFrame implements View
         JPanel infoPane = new JPanel(new BorderLayout());
             infoPane.add(stepLabel, BorderLayout.WEST);
             infoPane.add(infoLabel, BorderLayout.CENTER);
-        JPanel sideBar = new JPanel(new GridLayout(6,1));
+        JPanel sideBar = new JPanel(new GridLayout(7,1));
             sideBar.add(weatherLabel);
             sideBar.add(timeLabel);
             sideBar.add(simulateOneStepBtn);
             sideBar.add(resetBtn);
             sideBar.add(simulateLongRun);
+            sideBar.add(pauseBtn);
+            sideBar.add(historySlider);
             
         sideBar.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
         contents.add(infoPane, BorderLayout.NORTH);
@@ -146,9 +175,10 @@ public class SimulatorView extends JFrame implements View
      * @param animalClass The animal's Class object.
      * @param color The color to be used for the given class.
      */
-    public void setColor(Class animalClass, Color color)
+    public void setColor(Class<?> animalClass, Color color)
     {
-        colors.put(animalClass, color);
+        rgb[SpeciesRegistry.idOf(animalClass.asSubclass(Entity.class))] = color.getRGB();
+        fieldView.redrawAll();
     }
 
     /**
@@ -160,65 +190,95 @@ public class SimulatorView extends JFrame implements View
     }
 
     /**
-     * @return The color to be used for a given class of animal.
+     * Show the current status of the field.
+     * @param frame The state of the field to be displayed.
      */
-    private Color getColor(Class animalClass)
+    public void showStatus(FrameSnapshot frame)
     {
-        Color col = colors.get(animalClass);
-        if(col == null) {
-            // no color defined for this class
-            return UNKNOWN_COLOR;
+        // A step in flight when the user chose a past step still
+        // publishes its frame; the past step stays on show.
+        if(!showingHistory) {
+            showFrame(frame);
         }
-        else {
-            return col;
+        
+        FrameHistory history = simulator.getHistory();
+        if(history != null) {
+            updatingSlider = true;
+            historySlider.setMinimum(Math.max(history.getFirstStep(), 0));
+            historySlider.setMaximum(Math.max(history.getLastStep(), 0));
+            if(!showingHistory) {
+                historySlider.setValue(frame.getStep());
+            }
+            updatingSlider = false;
         }
     }
 
     /**
-     * Show the current status of the field.
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
+     * Go back to showing the running simulation, if a step from the
+     * history is being shown.
+     */
+    private void showLive()
+    {
+        if(showingHistory) {
+            // The image shows a past step, not the previous frame.
+            showingHistory = false;
+            fieldView.redrawAll();
+        }
+    }
+
+    /**
+     * Show a step kept in the history of the simulation, pausing the run
+     * if one is going.
+     * @param step The step to show.
+     */
+    private void showHistory(int step)
+    {
+        FrameHistory history = simulator.getHistory();
+        if(history == null) {
+            return;
+        }
+        RunController controller = simulator.getRunController();
+        if(controller.isRunning() && !controller.isPaused()) {
+            controller.pause();
+            pauseBtn.setText("Resume");
+        }
+        FrameSnapshot frame = history.getFrame(step);
+        if(frame != null) {
+            showingHistory = true;
+            fieldView.redrawAll();
+            showFrame(frame);
+        }
+    }
+
+    /**
+     * Show a frame in the window.
+     * @param frame The state of the field to be displayed.
      */
-    public void showStatus(int step, Field field)
+    private void showFrame(FrameSnapshot frame)
     {
         if(!isVisible()) {
             setVisible(true);
         }
             
-        stepLabel.setText(STEP_PREFIX + step);
-        stats.reset();
+        stepLabel.setText(STEP_PREFIX + frame.getStep());
         
-        String weatherText = produce20CharacterPadding(WEATHER_PREFIX + field.getWeatherCondition());
-        String timeString = produce20CharacterPadding(TIME_PREFIX + field.getTimeString());
+        String weatherText = produce20CharacterPadding(WEATHER_PREFIX + frame.getWeatherCondition());
+        String timeString = produce20CharacterPadding(TIME_PREFIX + frame.getTimeString());
         weatherLabel.setText(weatherText);
         timeLabel.setText(timeString);
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-                    fieldView.drawMark(col, row, getColor(animal.getClass()));
-                }
-                else {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
-                }
-            }
-        }
-        stats.countFinished();
+        fieldView.drawFrame(frame, rgb);
 
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+        population.setText(POPULATION_PREFIX + frame.getPopulationDetails());
     }
 
     /**
-     * Determine whether the simulation should continue to run.
-     * @return true If there is more than one species alive.
+     * Prepare for a new run. The whole field is redrawn by the next
+     * call to showStatus.
      */
-    public boolean isViable(Field field)
+    public void reset()
     {
-        return stats.isViable(field);
+        showingHistory = false;
+        fieldView.redrawAll();
     }
     
     /**
@@ -228,16 +288,25 @@ public class SimulatorView extends JFrame implements View
      * component displays the field.
      * This is rather advanced GUI stuff - you can ignore this 
      * for your project if you like.
+     *
+     * The field is drawn into an image with one pixel per cell, by
+     * writing the packed RGB value of each cell straight into the
+     * image's pixel array. The image is scaled up to the size of the
+     * component in a single drawImage when it is painted.
+     * Only the cells that have changed since the previous frame are
+     * drawn, and only the rectangle around them is repainted.
      */
     private class FieldView extends JPanel
     {
         private final int GRID_VIEW_SCALING_FACTOR = 6;
 
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The image of the field, one pixel per cell.
+        private BufferedImage fieldImage;
+        // The pixels of the image, in row-major order.
+        private int[] pixels;
+        // Whether every cell must be drawn by the next frame.
+        private boolean redrawAll;
 
         /**
          * Create a new FieldView component.
@@ -246,7 +315,9 @@ public class SimulatorView extends JFrame implements View
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+            redrawAll = true;
         }
 
         /**
@@ -259,52 +330,60 @@ public class SimulatorView extends JFrame implements View
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Make the next frame draw every cell, not only the changed ones.
          */
-        public void preparePaint()
+        public void redrawAll()
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
-                }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
-                }
-            }
+            redrawAll = true;
         }
-        
+
         /**
-         * Paint on grid location on this field in a given color.
+         * Draw the cells of a frame into the image and repaint the part
+         * of the component that has changed. The frame must follow the
+         * previous one drawn, unless every cell is to be redrawn.
+         * @param frame The frame to draw; the same size as the grid.
+         * @param rgb The packed RGB value of each species, by species id.
          */
-        public void drawMark(int x, int y, Color color)
+        public void drawFrame(FrameSnapshot frame, int[] rgb)
         {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
+            if(redrawAll) {
+                redrawAll = false;
+                for(int index = 0; index < pixels.length; index++) {
+                    pixels[index] = rgb[frame.getSpeciesAt(index)];
+                }
+                repaint();
+                return;
+            }
+            int top = gridHeight, bottom = -1;
+            int left = gridWidth, right = -1;
+            for(int index = frame.nextChangedCell(0); index >= 0;
+                index = frame.nextChangedCell(index + 1)) {
+                pixels[index] = rgb[frame.getSpeciesAt(index)];
+                int row = index / gridWidth;
+                int col = index % gridWidth;
+                top = Math.min(top, row);
+                bottom = Math.max(bottom, row);
+                left = Math.min(left, col);
+                right = Math.max(right, col);
+            }
+            if(bottom >= 0) {
+                // Repaint the cells changed, scaled to the size of the component.
+                int x = left * getWidth() / gridWidth;
+                int y = top * getHeight() / gridHeight;
+                int endX = ((right + 1) * getWidth() + gridWidth - 1) / gridWidth;
+                int endY = ((bottom + 1) * getHeight() + gridHeight - 1) / gridHeight;
+                repaint(x, y, endX - x, endY - y);
+            }
         }
 
         /**
          * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * internal image to screen, scaled to the size of the component.
          */
         public void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
-                }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
-                }
-            }
+            super.paintComponent(g);
+            g.drawImage(fieldImage, 0, 0, getWidth(), getHeight(), null);
         }
     }
 }
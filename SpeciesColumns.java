@@ -0,0 +1,272 @@
+import java.util.Arrays;
+
+/**
+ * The state of every individual of one species, stored column by column.
+ * Each individual occupies a slot, and its age, food level, location, sex
+ * and whether it is alive are kept in primitive arrays indexed by that
+ * slot. The slots of dead individuals are recycled for newborns, so the
+ * columns only grow when the population reaches a new maximum. A slot
+ * released during a step is only reused after the step, so code that
+ * still holds the slot of an individual that has just died never finds
+ * another individual in it.
+ *
+ * The columns are split into chunks of a fixed number of slots. Growing
+ * adds a chunk and never moves the existing ones, so individuals in
+ * different parts of the field can be updated by different threads while
+ * others are being born. Taking and releasing slots is synchronized.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class SpeciesColumns
+{
+    // The number of slots in a chunk is 2 to the power of this.
+    private static final int CHUNK_BITS = 12;
+    // The number of slots in a chunk.
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    // Selects the position of a slot within its chunk.
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // The age of each individual, by chunk.
+    private int[][] age;
+    // The food level of each individual, by chunk.
+    private int[][] foodLevel;
+    // The row-major index of the cell each individual occupies, by chunk.
+    private int[][] cell;
+    // One bit per slot, by chunk: whether the individual is female.
+    private long[][] female;
+    // One bit per slot, by chunk: whether the slot holds a live individual.
+    private long[][] alive;
+    // A stack of the slots that have been released.
+    private int[] freeSlots;
+    // The number of slots on the stack of free slots.
+    private int freeCount;
+    // The slots released during the current step.
+    private int[] releasedSlots;
+    // The number of slots released during the current step.
+    private int releasedCount;
+    // The number of slots in use or released; all slots from here on are unused.
+    private int size;
+    // The number of live individuals.
+    private int count;
+
+    /**
+     * Create empty columns.
+     */
+    public SpeciesColumns()
+    {
+        age = new int[0][];
+        foodLevel = new int[0][];
+        cell = new int[0][];
+        female = new long[0][];
+        alive = new long[0][];
+        freeSlots = new int[CHUNK_SIZE];
+        freeCount = 0;
+        releasedSlots = new int[CHUNK_SIZE];
+        releasedCount = 0;
+        size = 0;
+        count = 0;
+    }
+
+    /**
+     * Take a slot for a new individual and fill in its state.
+     * @param isFemale Whether the individual is female.
+     * @param index The index of the cell it occupies.
+     * @param initialAge Its age.
+     * @param initialFoodLevel Its food level.
+     * @return The slot of the new individual.
+     */
+    public synchronized int allocate(boolean isFemale, int index, int initialAge,
+                                     int initialFoodLevel)
+    {
+        int slot;
+        if(freeCount > 0) {
+            freeCount--;
+            slot = freeSlots[freeCount];
+        }
+        else {
+            if(size == age.length * CHUNK_SIZE) {
+                grow();
+            }
+            slot = size;
+            size++;
+        }
+        age[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = initialAge;
+        foodLevel[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = initialFoodLevel;
+        cell[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = index;
+        setBit(female, slot, isFemale);
+        setBit(alive, slot, true);
+        count++;
+        return slot;
+    }
+
+    /**
+     * Release the slot of an individual that has died. The slot can be
+     * taken again after the next call of recycle.
+     * Releasing a slot that is not in use has no effect.
+     * @param slot The slot to release.
+     */
+    public synchronized void release(int slot)
+    {
+        if(isAlive(slot)) {
+            setBit(alive, slot, false);
+            if(releasedCount == releasedSlots.length) {
+                releasedSlots = Arrays.copyOf(releasedSlots, releasedCount * 2);
+            }
+            releasedSlots[releasedCount] = slot;
+            releasedCount++;
+            count--;
+        }
+    }
+
+    /**
+     * Make the slots released so far available to new individuals.
+     * Called between steps.
+     */
+    public synchronized void recycle()
+    {
+        if(freeCount + releasedCount > freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount + releasedCount);
+        }
+        System.arraycopy(releasedSlots, 0, freeSlots, freeCount, releasedCount);
+        freeCount += releasedCount;
+        releasedCount = 0;
+    }
+
+    /**
+     * Remove all individuals.
+     */
+    public synchronized void clear()
+    {
+        for(long[] chunk : alive) {
+            Arrays.fill(chunk, 0);
+        }
+        freeCount = 0;
+        releasedCount = 0;
+        size = 0;
+        count = 0;
+    }
+
+    /**
+     * Return the number of slots that may be in use. Every live
+     * individual has a slot below this number.
+     * @return The number of slots to iterate over.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return The number of live individuals.
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+    /**
+     * @return Whether the slot holds a live individual.
+     */
+    public boolean isAlive(int slot)
+    {
+        return getBit(alive, slot);
+    }
+
+    /**
+     * @return Whether the individual in the slot is female.
+     */
+    public boolean isFemale(int slot)
+    {
+        return getBit(female, slot);
+    }
+
+    /**
+     * @return The age of the individual in the slot.
+     */
+    public int getAge(int slot)
+    {
+        return age[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Set the age of the individual in the slot.
+     */
+    public void setAge(int slot, int newAge)
+    {
+        age[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = newAge;
+    }
+
+    /**
+     * @return The food level of the individual in the slot.
+     */
+    public int getFoodLevel(int slot)
+    {
+        return foodLevel[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Set the food level of the individual in the slot.
+     */
+    public void setFoodLevel(int slot, int newFoodLevel)
+    {
+        foodLevel[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = newFoodLevel;
+    }
+
+    /**
+     * @return The index of the cell occupied by the individual in the slot.
+     */
+    public int getCell(int slot)
+    {
+        return cell[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+    }
+
+    /**
+     * Set the index of the cell occupied by the individual in the slot.
+     */
+    public void setCell(int slot, int index)
+    {
+        cell[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = index;
+    }
+
+    /**
+     * Add a chunk to every column.
+     */
+    private void grow()
+    {
+        int chunks = age.length + 1;
+        age = Arrays.copyOf(age, chunks);
+        foodLevel = Arrays.copyOf(foodLevel, chunks);
+        cell = Arrays.copyOf(cell, chunks);
+        female = Arrays.copyOf(female, chunks);
+        alive = Arrays.copyOf(alive, chunks);
+        age[chunks - 1] = new int[CHUNK_SIZE];
+        foodLevel[chunks - 1] = new int[CHUNK_SIZE];
+        cell[chunks - 1] = new int[CHUNK_SIZE];
+        female[chunks - 1] = new long[CHUNK_SIZE / 64];
+        alive[chunks - 1] = new long[CHUNK_SIZE / 64];
+    }
+
+    /**
+     * @return The bit of the given slot.
+     */
+    private static boolean getBit(long[][] bits, int slot)
+    {
+        return (bits[slot >>> CHUNK_BITS][(slot & CHUNK_MASK) >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Set or clear the bit of the given slot.
+     */
+    private static void setBit(long[][] bits, int slot, boolean value)
+    {
+        long[] chunk = bits[slot >>> CHUNK_BITS];
+        int word = (slot & CHUNK_MASK) >>> 6;
+        if(value) {
+            chunk[word] |= 1L << slot;
+        }
+        else {
+            chunk[word] &= ~(1L << slot);
+        }
+    }
+}
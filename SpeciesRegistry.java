@@ -0,0 +1,88 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives every kind of entity a small, dense id. Ids are handed out in the
+ * order in which the kinds are first asked for, starting at 1 (0 is
+ * Field.EMPTY), and never change while the program runs. The id of a
+ * species is the code stored for it in the cells of the field, and
+ * anything kept per species - counters, colours, food values - can be
+ * held in a plain array indexed by it instead of a map keyed by class.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class SpeciesRegistry
+{
+    // The largest id, limited by the byte codes of the field.
+    public static final int MAX_SPECIES = Byte.MAX_VALUE;
+
+    // The id of each registered class.
+    private static final Map<Class<?>, Byte> ids = new HashMap<>();
+    // The class of each id; element 0 stands for Field.EMPTY.
+    private static final Class<?>[] classes = new Class<?>[MAX_SPECIES + 1];
+    // The number of registered classes.
+    private static int size = 0;
+
+    /**
+     * Return the id of a kind of entity, giving it the next free id
+     * if it does not have one yet.
+     * @param species The class of the entity.
+     * @return The id of the species, from 1 to MAX_SPECIES.
+     */
+    public static synchronized byte idOf(Class<? extends Entity> species)
+    {
+        Byte id = ids.get(species);
+        if(id == null) {
+            if(size == MAX_SPECIES) {
+                throw new IllegalStateException("Too many species to register " + species.getName());
+            }
+            size++;
+            id = (byte) size;
+            ids.put(species, id);
+            classes[size] = species;
+        }
+        return id;
+    }
+
+    /**
+     * Return the id of a class without registering it.
+     * @param species The class to look up.
+     * @return The id of the species, or Field.EMPTY if it has none.
+     */
+    public static synchronized byte find(Class<?> species)
+    {
+        Byte id = ids.get(species);
+        return id == null ? Field.EMPTY : id;
+    }
+
+    /**
+     * Return the number of registered species. Their ids run from 1
+     * up to and including this number.
+     * @return The number of species.
+     */
+    public static synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Return the class with the given id.
+     * @param id The id of the species.
+     * @return The class, or null if no class has that id.
+     */
+    public static synchronized Class<?> getSpecies(int id)
+    {
+        return classes[id];
+    }
+
+    /**
+     * Return the name of the species with the given id.
+     * @param id The id of the species.
+     * @return The name of its class.
+     */
+    public static String getName(int id)
+    {
+        return getSpecies(id).getName();
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.Properties;
+
+/**
+ * The characteristics of a species of animal: how long its members
+ * live, when and how much they breed, whether they get hungry and when
+ * they feed and move. Every animal species is run by the same code in
+ * Animal, driven by its spec; what each species eats is in Diet.
+ *
+ * Specs cannot be changed. A spec with other values is made with
+ * withOverrides, which reads them from properties named after the
+ * species, such as "Fox.maxAge=80". Animals apply the system properties
+ * to the spec of their species when they are created, so a run can be
+ * tuned from the command line (java -DFox.maxAge=80 ...) without
+ * changing the code.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public final class SpeciesSpec
+{
+    /**
+     * The part of the day in which an animal does something.
+     */
+    public enum Activity
+    {
+        ALWAYS, NIGHT;
+
+        /**
+         * @param field The field the animal lives in.
+         * @return Whether the animal is active now.
+         */
+        public boolean isActive(Field field)
+        {
+            return this == ALWAYS || !field.isDay();
+        }
+    }
+
+    // The age at which an animal can start to breed.
+    private final int breedingAge;
+    // The age to which an animal can live.
+    private final int maxAge;
+    // The likelihood of a female breeding in a step.
+    private final double breedingProbability;
+    // The maximum number of births.
+    private final int maxLitterSize;
+    // How far a female looks for a male to breed with.
+    private final int mateDistance;
+    // How far from its mother a young one can be born.
+    private final int birthDistance;
+    // The food level of a new born; the food level of the first animals
+    // is drawn below it.
+    private final int startingFoodLevel;
+    // Whether the food level falls each step, so that the animal can starve.
+    private final boolean hungry;
+    // When the animal looks for food.
+    private final Activity feeding;
+    // When the animal moves.
+    private final Activity moving;
+
+    /**
+     * Create a spec.
+     * @param breedingAge The age at which an animal can start to breed.
+     * @param maxAge The age to which an animal can live; at least 1.
+     * @param breedingProbability The likelihood of a female breeding in a step.
+     * @param maxLitterSize The maximum number of births; at least 1.
+     * @param mateDistance How far a female looks for a male to breed with.
+     * @param birthDistance How far from its mother a young one can be born.
+     * @param startingFoodLevel The food level of a new born; at least 1.
+     * @param hungry Whether the food level falls each step.
+     * @param feeding When the animal looks for food.
+     * @param moving When the animal moves.
+     */
+    public SpeciesSpec(int breedingAge, int maxAge, double breedingProbability,
+                       int maxLitterSize, int mateDistance, int birthDistance,
+                       int startingFoodLevel, boolean hungry,
+                       Activity feeding, Activity moving)
+    {
+        if(maxAge < 1 || maxLitterSize < 1 || startingFoodLevel < 1
+           || mateDistance < 1 || birthDistance < 1) {
+            throw new IllegalArgumentException("The ages, sizes and distances of a species must be positive");
+        }
+        this.breedingAge = breedingAge;
+        this.maxAge = maxAge;
+        this.breedingProbability = breedingProbability;
+        this.maxLitterSize = maxLitterSize;
+        this.mateDistance = mateDistance;
+        this.birthDistance = birthDistance;
+        this.startingFoodLevel = startingFoodLevel;
+        this.hungry = hungry;
+        this.feeding = feeding;
+        this.moving = moving;
+    }
+
+    /**
+     * Return a spec with the values given in properties. A value is read
+     * from the property named after the species and the value, such as
+     * "Fox.breedingProbability"; values without a property are kept.
+     * @param species The name of the species, such as "Fox".
+     * @param properties The properties to read.
+     * @return The spec with the values read.
+     * @throws IllegalArgumentException If a value cannot be read.
+     */
+    public SpeciesSpec withOverrides(String species, Properties properties)
+    {
+        String prefix = species + ".";
+        return new SpeciesSpec(
+            readInt(properties, prefix + "breedingAge", breedingAge),
+            readInt(properties, prefix + "maxAge", maxAge),
+            readDouble(properties, prefix + "breedingProbability", breedingProbability),
+            readInt(properties, prefix + "maxLitterSize", maxLitterSize),
+            readInt(properties, prefix + "mateDistance", mateDistance),
+            readInt(properties, prefix + "birthDistance", birthDistance),
+            readInt(properties, prefix + "startingFoodLevel", startingFoodLevel),
+            Boolean.parseBoolean(properties.getProperty(prefix + "hungry", String.valueOf(hungry))),
+            readActivity(properties, prefix + "feeding", feeding),
+            readActivity(properties, prefix + "moving", moving));
+    }
+
+    /**
+     * @return The age at which an animal can start to breed.
+     */
+    public int getBreedingAge()
+    {
+        return breedingAge;
+    }
+
+    /**
+     * @return The age to which an animal can live.
+     */
+    public int getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return The likelihood of a female breeding in a step.
+     */
+    public double getBreedingProbability()
+    {
+        return breedingProbability;
+    }
+
+    /**
+     * @return The maximum number of births.
+     */
+    public int getMaxLitterSize()
+    {
+        return maxLitterSize;
+    }
+
+    /**
+     * @return How far a female looks for a male to breed with.
+     */
+    public int getMateDistance()
+    {
+        return mateDistance;
+    }
+
+    /**
+     * @return How far from its mother a young one can be born.
+     */
+    public int getBirthDistance()
+    {
+        return birthDistance;
+    }
+
+    /**
+     * Return how far from its cell an animal can look at or change a
+     * cell in one step: the further of the mate and birth distances, and
+     * at least one, as it feeds and moves next to its cell.
+     * @return The reach of the species, in cells.
+     */
+    public int getReach()
+    {
+        return Math.max(1, Math.max(mateDistance, birthDistance));
+    }
+
+    /**
+     * @return The food level of a new born.
+     */
+    public int getStartingFoodLevel()
+    {
+        return startingFoodLevel;
+    }
+
+    /**
+     * @return Whether the food level falls each step.
+     */
+    public boolean isHungry()
+    {
+        return hungry;
+    }
+
+    /**
+     * @return When the animal looks for food.
+     */
+    public Activity getFeeding()
+    {
+        return feeding;
+    }
+
+    /**
+     * @return When the animal moves.
+     */
+    public Activity getMoving()
+    {
+        return moving;
+    }
+
+    /**
+     * Read a whole number from a property.
+     * @param properties The properties.
+     * @param name The name of the property.
+     * @param value The value if there is no such property.
+     * @return The value read.
+     */
+    private static int readInt(Properties properties, String name, int value)
+    {
+        String text = properties.getProperty(name);
+        if(text == null) {
+            return value;
+        }
+        try {
+            return Integer.parseInt(text.trim());
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Not a whole number: " + name + "=" + text, e);
+        }
+    }
+
+    /**
+     * Read a number from a property.
+     * @param properties The properties.
+     * @param name The name of the property.
+     * @param value The value if there is no such property.
+     * @return The value read.
+     */
+    private static double readDouble(Properties properties, String name, double value)
+    {
+        String text = properties.getProperty(name);
+        if(text == null) {
+            return value;
+        }
+        try {
+            return Double.parseDouble(text.trim());
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + name + "=" + text, e);
+        }
+    }
+
+    /**
+     * Read an activity from a property, such as "night".
+     * @param properties The properties.
+     * @param name The name of the property.
+     * @param value The value if there is no such property.
+     * @return The value read.
+     */
+    private static Activity readActivity(Properties properties, String name, Activity value)
+    {
+        String text = properties.getProperty(name);
+        if(text == null) {
+            return value;
+        }
+        try {
+            return Activity.valueOf(text.trim().toUpperCase());
+        }
+        catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Not an activity: " + name + "=" + text, e);
+        }
+    }
+}
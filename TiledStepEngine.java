@@ -0,0 +1,278 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the steps of a simulation on several threads. The field is cut
+ * into square tiles, and the tiles are coloured like a chessboard in
+ * four colours, so that two tiles of the same colour are always at least
+ * a whole tile apart. A step is run as four phases, one per colour; in
+ * each phase the tiles of that colour are updated at the same time.
+ * No entity looks at or changes a cell further away than the reach of
+ * its species (see Field.getReach), and tiles are at least twice the
+ * largest reach, so the tiles updated together never touch the same
+ * cells. The reach is checked before every step, since the spec of a
+ * species can change between steps, and the field is cut into larger
+ * tiles when it needs them.
+ *
+ * Within a tile the plants are updated first, all together by the field's
+ * PlantLayer. Then the cells are visited row by row, and every animal found
+ * acts unless it already arrived in its cell during the step. Each tile
+ * draws from its own random stream, chosen by the run, the step and the
+ * position of the tile only, and the tiles depend only on the reach of the
+ * species, so a run gives the same results for any number of
+ * threads, including none: with a parallelism of zero the tiles are run
+ * in the same order on the calling thread.
+ *
+ * The tiles of a phase are shared out by weight: the weight of a tile is
+ * the number of entities that acted in it in the previous step, so that
+ * crowded tiles are split across threads rather than left to one.
+ *
+ * @author Kwan Yui Chiu and Reibjok Othow
+ * @version 18/10/2026
+ */
+public class TiledStepEngine
+{
+    // The default width and depth of a tile, in cells.
+    private static final int DEFAULT_TILE_SIZE = 32;
+    // The number of tasks per thread a phase is cut into, at most.
+    private static final int TASKS_PER_THREAD = 8;
+
+    // The field the entities live in.
+    private final Field field;
+    // The streams the tiles draw from.
+    private final RandomStreams streams;
+    // The pool that runs the phases, or null to run them on the calling thread.
+    private final ForkJoinPool pool;
+    // The smallest width and depth of a tile asked for, in cells.
+    private final int minTileSize;
+    // The width and depth of a tile, in cells.
+    private int tileSize;
+    // The number of tiles down and across the field.
+    private int tileRows, tileCols;
+    // The tiles of each colour, as indexes into the tiles.
+    private int[][] tilesByColour;
+    // The weight of each tile.
+    private int[] weights;
+    // The running total of the weights of the tiles of the current phase.
+    private long[] prefixWeights;
+    // The random generator of each tile.
+    private Random[] generators;
+    // Room for the free cells around a plant, for each tile.
+    private int[][] seedBuffers;
+
+    /**
+     * Create an engine for the given field with tiles of the default size.
+     * @param field The field to update.
+     * @param streams The random streams of the simulation.
+     * @param parallelism The number of threads to use, or zero.
+     */
+    public TiledStepEngine(Field field, RandomStreams streams, int parallelism)
+    {
+        this(field, streams, parallelism, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Create an engine for the given field.
+     * @param field The field to update.
+     * @param streams The random streams of the simulation.
+     * @param parallelism The number of threads to use, or zero to run
+     *                    on the thread that calls step.
+     * @param tileSize The width and depth of a tile; at least 2. Tiles
+     *                 are made larger if the species reach further than
+     *                 half of it.
+     */
+    public TiledStepEngine(Field field, RandomStreams streams, int parallelism, int tileSize)
+    {
+        if(parallelism < 0) {
+            throw new IllegalArgumentException("Parallelism must not be negative: " + parallelism);
+        }
+        if(tileSize < 2) {
+            throw new IllegalArgumentException("Tiles must be at least 2 cells wide: " + tileSize);
+        }
+        this.field = field;
+        this.streams = streams;
+        minTileSize = tileSize;
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        tile(tileSize);
+    }
+
+    /**
+     * Cut the field into tiles of the given size.
+     * @param tileSize The width and depth of a tile.
+     */
+    private void tile(int tileSize)
+    {
+        this.tileSize = tileSize;
+        tileRows = (field.getDepth() + tileSize - 1) / tileSize;
+        tileCols = (field.getWidth() + tileSize - 1) / tileSize;
+        int tiles = tileRows * tileCols;
+
+        int[] colourCounts = new int[4];
+        for(int tile = 0; tile < tiles; tile++) {
+            colourCounts[colourOf(tile)]++;
+        }
+        tilesByColour = new int[4][];
+        for(int colour = 0; colour < 4; colour++) {
+            tilesByColour[colour] = new int[colourCounts[colour]];
+            colourCounts[colour] = 0;
+        }
+        for(int tile = 0; tile < tiles; tile++) {
+            int colour = colourOf(tile);
+            tilesByColour[colour][colourCounts[colour]++] = tile;
+        }
+
+        weights = new int[tiles];
+        prefixWeights = new long[tiles + 1];
+        generators = new Random[tiles];
+        seedBuffers = new int[tiles][8];
+        for(int tile = 0; tile < tiles; tile++) {
+            weights[tile] = 1;
+            generators[tile] = new Random();
+        }
+    }
+
+    /**
+     * Make every entity in the field act once. The field's step must
+     * already have been increased.
+     */
+    public void step()
+    {
+        // The tiles follow the reach of the species as it is now, so that
+        // they never depend on the specs of earlier steps.
+        int size = Math.max(minTileSize, 2 * field.getReach());
+        if(size != tileSize) {
+            tile(size);
+        }
+        for(int[] tiles : tilesByColour) {
+            if(pool == null) {
+                for(int tile : tiles) {
+                    runTile(tile);
+                }
+            }
+            else if(tiles.length > 0) {
+                prefixWeights[0] = 0;
+                for(int i = 0; i < tiles.length; i++) {
+                    prefixWeights[i + 1] = prefixWeights[i] + weights[tiles[i]];
+                }
+                long grain = Math.max(1, prefixWeights[tiles.length]
+                                         / (pool.getParallelism() * TASKS_PER_THREAD));
+                pool.invoke(new PhaseTask(tiles, 0, tiles.length, grain));
+            }
+        }
+    }
+
+    /**
+     * Stop the threads of the engine. It must not be used afterwards.
+     */
+    public void shutdown()
+    {
+        if(pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Return the number of threads the engine runs on.
+     * @return The parallelism of the engine, or zero if it runs
+     *         on the calling thread.
+     */
+    public int getParallelism()
+    {
+        return pool == null ? 0 : pool.getParallelism();
+    }
+
+    /**
+     * Update the plants of one tile, then make every animal in it act,
+     * cell by cell.
+     * @param tile The index of the tile.
+     */
+    private void runTile(int tile)
+    {
+        Random rand = generators[tile];
+        streams.reseed(rand, RandomStreams.TILE, field.getRun(), field.getStep(), tile);
+        int width = field.getWidth();
+        int firstRow = (tile / tileCols) * tileSize;
+        int firstCol = (tile % tileCols) * tileSize;
+        int lastRow = Math.min(firstRow + tileSize, field.getDepth());
+        int lastCol = Math.min(firstCol + tileSize, width);
+        PlantLayer plants = field.getPlants();
+        int acted = plants.update(firstRow, lastRow, firstCol, lastCol, rand,
+                                  seedBuffers[tile]);
+        for(int row = firstRow; row < lastRow; row++) {
+            for(int index = row * width + firstCol; index < row * width + lastCol; index++) {
+                byte code = field.getSpeciesAt(index);
+                if(code != Field.EMPTY && !plants.isPlant(code) && !field.isPlacedThisStep(index)) {
+                    field.getKind(code).act(field.getSlotAt(index), rand);
+                    acted++;
+                }
+            }
+        }
+        weights[tile] = acted + 1;
+    }
+
+    /**
+     * Return the colour of a tile, from 0 to 3.
+     * @param tile The index of the tile.
+     * @return The colour of the tile.
+     */
+    private int colourOf(int tile)
+    {
+        return (tile / tileCols) % 2 * 2 + (tile % tileCols) % 2;
+    }
+
+    /**
+     * Runs a range of the tiles of one colour, splitting it in two by
+     * weight until each part is light enough for one thread.
+     */
+    private class PhaseTask extends RecursiveAction
+    {
+        // Tasks are never serialized, but RecursiveAction is Serializable.
+        private static final long serialVersionUID = 1L;
+
+        // The tiles of the phase.
+        private final int[] tiles;
+        // The range of tiles to run, from inclusive and to exclusive.
+        private final int from, to;
+        // The weight below which a range is run without splitting.
+        private final long grain;
+
+        /**
+         * Create a task for a range of tiles.
+         * @param tiles The tiles of the phase.
+         * @param from The first tile of the range.
+         * @param to The end of the range (exclusive).
+         * @param grain The weight below which a range is not split.
+         */
+        public PhaseTask(int[] tiles, int from, int to, long grain)
+        {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        /**
+         * Run the tiles, or split them and run both halves.
+         */
+        protected void compute()
+        {
+            if(to - from > 1 && prefixWeights[to] - prefixWeights[from] > grain) {
+                long half = (prefixWeights[from] + prefixWeights[to]) / 2;
+                int middle = Arrays.binarySearch(prefixWeights, from + 1, to, half);
+                if(middle < 0) {
+                    middle = -middle - 1;
+                }
+                middle = Math.min(middle, to - 1);
+                invokeAll(new PhaseTask(tiles, from, middle, grain),
+                          new PhaseTask(tiles, middle, to, grain));
+            }
+            else {
+                for(int i = from; i < to; i++) {
+                    runTile(tiles[i]);
+                }
+            }
+        }
+    }
+}
@@ -17,15 +17,16 @@ public interface View
     void setColor(Class<?> animalClass, Color color);
 
     /**
-     * Determine whether the simulation should continue to run.
-     * @return true If there is more than one species alive.
+     * Show the current status of the field. The same snapshot is
+     * given to every view, on the event dispatch thread. A view may
+     * not be shown every step when the simulation runs faster than
+     * the views can draw.
+     * @param frame The state of the field to be displayed.
      */
-    boolean isViable(Field field);
+    void showStatus(FrameSnapshot frame);
 
     /**
-     * Show the current status of the field.
-     * @param step Which iteration step it is.
-     * @param field The field whose status is to be displayed.
+     * Prepare the view for a new simulation run.
      */
-    void showStatus(int step, Field field);
+    void reset();
 }
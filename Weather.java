@@ -9,26 +9,48 @@ import java.util.Random;
  */
 public class Weather
 {   
-    private static final Random rand = Randomizer.getRandom();
     private static final  int MAX_WEATHER_LENGTH = 9;
+    // The codes of the weather conditions, as stored in recordings.
+    public static final int SUNNY = 0;
+    public static final int RAINING = 1;
+    public static final int FOGGY = 2;
     
+    // The streams the weather is drawn from.
+    private RandomStreams streams;
+    // The generator of the current change of weather.
+    private Random rand;
     private int currentWeatherStep;
     private boolean isRaining;
     private boolean isFoggy;
     private boolean isSunny;
     /**
      * Constructor for objects of class Weather
+     * @param streams The random streams the weather is drawn from.
      */
-    public Weather()
+    public Weather(RandomStreams streams)
     {
-        randomiseWeather();
+        this.streams = streams;
+        rand = new Random();
+        randomiseWeather(0, 0);
+    }
+    
+    /**
+     * Draw the weather of the start of a run afresh.
+     * @param run The run that starts.
+     */
+    public void start(int run){
+        randomiseWeather(run, 0);
     }
     
     /**
      * this method randomises the weather 
      * there are three possible weather conditions; rainy, foggy and sunny
+     * The weather drawn depends only on the run and the step it changes at.
+     * @param run The current run.
+     * @param step The current step.
      */
-    private void randomiseWeather(){
+    private void randomiseWeather(int run, int step){
+        streams.reseed(rand, RandomStreams.WEATHER, run, step, 0);
         // Reset the weather
         isRaining = isFoggy = isSunny = false;
         int weather = rand.nextInt(4);
@@ -49,22 +71,66 @@ public class Weather
     
     /**
      * this method updates the weather condition 
+     * @param run The current run.
+     * @param step The step that has just begun.
      */
-    public void update(){
+    public void update(int run, int step){
         currentWeatherStep--;
         if (currentWeatherStep == 0){
-            randomiseWeather();
+            randomiseWeather(run, step);
         }
     }
     
+    /**
+     * This method returns the number of steps left before the weather changes
+     * @return int the number of steps, at least 1
+     */
+    public int getRemainingSteps(){
+        return currentWeatherStep;
+    }
+    
+    /**
+     * this method sets the weather, as when restoring a checkpoint
+     * @param code SUNNY, RAINING or FOGGY
+     * @param remainingSteps the number of steps before the weather changes
+     */
+    public void restore(int code, int remainingSteps){
+        isRaining = code == RAINING;
+        isFoggy = code == FOGGY;
+        isSunny = !isRaining && !isFoggy;
+        currentWeatherStep = remainingSteps;
+    }
+    
     /**
      * This method returns a description of the weather
      * @return String the weather description
      */
     public String getDescription(){
+        return getDescription(getCode());
+    }
+    
+    /**
+     * This method returns the code of the weather
+     * @return int SUNNY, RAINING or FOGGY
+     */
+    public int getCode(){
         if (isRaining){
-            return "raining";
+            return RAINING;
         }else if (isFoggy){
+            return FOGGY;
+        }
+        return SUNNY;
+    }
+    
+    /**
+     * This method returns a description of a weather code
+     * @param code SUNNY, RAINING or FOGGY
+     * @return String the weather description
+     */
+    public static String getDescription(int code){
+        if (code == RAINING){
+            return "raining";
+        }else if (code == FOGGY){
             return "foggy";
         }
         return "sunny";